@@ -2,6 +2,8 @@ if [ "$1" == "compile" ]; then
     ./gradlew jar
 elif [ "$1" == "run" ]; then
     java -jar ./build/libs/gestor-de-teclats-1.0.jar
+elif [ "$1" == "bench" ]; then
+    ./gradlew jmh
 else
-    echo "Usage: $0 {compile|run}"
+    echo "Usage: $0 {compile|run|bench}"
 fi
\ No newline at end of file
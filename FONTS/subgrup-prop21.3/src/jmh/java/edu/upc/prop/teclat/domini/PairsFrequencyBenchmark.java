@@ -0,0 +1,81 @@
+package edu.upc.prop.teclat.domini;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.InstanciesBenchmark;
+
+/**
+ * Micro-benchmarks de la consulta de freqüències de parells de {@link PairsFrequency}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairsFrequencyBenchmark {
+    /** Nombre de consultes per invocació*/
+    private static final int CONSULTES = 1024;
+
+    @Param({"10", "30", "60"})
+    public int numSimbols;
+
+    @Param({"0.1", "1.0"})
+    public double densitat;
+
+    private PairsFrequency freq;
+    private char[] primers;
+    private char[] segons;
+    private int[] primersIdx;
+    private int[] segonsIdx;
+
+    @Setup
+    public void setup() {
+        String simbols = InstanciesBenchmark.simbols(numSimbols);
+        freq = InstanciesBenchmark.freqs(simbols, densitat);
+        Random random = new Random(InstanciesBenchmark.LLAVOR);
+        primers = new char[CONSULTES];
+        segons = new char[CONSULTES];
+        primersIdx = new int[CONSULTES];
+        segonsIdx = new int[CONSULTES];
+        for(int i = 0; i < CONSULTES; i++) {
+            primers[i] = simbols.charAt(random.nextInt(numSimbols));
+            segons[i] = simbols.charAt(random.nextInt(numSimbols));
+            primersIdx[i] = freq.getIndex(primers[i]);
+            segonsIdx[i] = freq.getIndex(segons[i]);
+        }
+    }
+
+    @Benchmark
+    public long getPerSimbol() {
+        long total = 0;
+        for(int i = 0; i < CONSULTES; i++) {
+            total += freq.get(primers[i], segons[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long getPerIndex() {
+        long total = 0;
+        for(int i = 0; i < CONSULTES; i++) {
+            if(primersIdx[i] >= 0 && segonsIdx[i] >= 0) {
+                total += freq.get(primersIdx[i], segonsIdx[i]);
+            }
+        }
+        return total;
+    }
+}
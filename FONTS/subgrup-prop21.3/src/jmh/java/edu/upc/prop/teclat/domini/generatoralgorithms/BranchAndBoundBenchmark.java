@@ -0,0 +1,70 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.BranchAndBoundGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.eigenvalue.BoundEigenvalue;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler.AdaptiveGilmoreLawler;
+
+/**
+ * Benchmarks del Branch & Bound exacte. Com que el cost creix exponencialment amb
+ * l'alfabet, les mides per defecte són petites; es poden canviar amb {@code -p numSimbols=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BranchAndBoundBenchmark {
+    @Param({"8", "9", "10"})
+    public int numSimbols;
+
+    @Param({"3", "4"})
+    public int columnes;
+
+    @Param({"0.1", "0.5", "1.0"})
+    public double densitat;
+
+    private String simbols;
+    private PairsFrequency freq;
+
+    @Setup
+    public void setup() {
+        simbols = InstanciesBenchmark.simbols(numSimbols);
+        freq = InstanciesBenchmark.freqs(simbols, densitat);
+    }
+
+    @Benchmark
+    public char[] branchAndBoundSequencial() {
+        return new BranchAndBoundGenerator(false).solve(simbols, columnes, freq);
+    }
+
+    @Benchmark
+    public char[] branchAndBoundParallel() {
+        return new BranchAndBoundGenerator(true).solve(simbols, columnes, freq);
+    }
+
+    @Benchmark
+    public char[] branchAndBoundEigenvalue() {
+        return new BranchAndBoundGenerator(false, BoundEigenvalue::new).solve(simbols, columnes, freq);
+    }
+
+    @Benchmark
+    public char[] branchAndBoundAdaptatiu() {
+        return new BranchAndBoundGenerator(false, AdaptiveGilmoreLawler::new).solve(simbols, columnes, freq);
+    }
+}
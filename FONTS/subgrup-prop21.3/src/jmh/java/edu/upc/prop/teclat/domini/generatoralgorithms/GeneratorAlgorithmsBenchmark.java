@@ -0,0 +1,66 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.HillClimbing;
+import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems.QAPHillClimbing;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.GreedyGenerator;
+
+/**
+ * Benchmarks dels algoritmes generadors heurístics, parametritzats per la mida de l'alfabet,
+ * el nombre de columnes del teclat i la densitat de la matriu de freqüències.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorAlgorithmsBenchmark {
+    @Param({"10", "20", "30"})
+    public int numSimbols;
+
+    @Param({"3", "10"})
+    public int columnes;
+
+    @Param({"0.1", "0.5", "1.0"})
+    public double densitat;
+
+    private String simbols;
+    private PairsFrequency freq;
+    private final long[] llavors = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+    @Setup
+    public void setup() {
+        simbols = InstanciesBenchmark.simbols(numSimbols);
+        freq = InstanciesBenchmark.freqs(simbols, densitat);
+    }
+
+    @Benchmark
+    public char[] greedy() {
+        return new GreedyGenerator().solve(simbols, columnes, freq);
+    }
+
+    @Benchmark
+    public char[] hillClimbingBestImprovement() {
+        return new QAPHillClimbing(HillClimbing.Strategy.BEST_IMPROVEMENT, llavors).solve(simbols, columnes, freq);
+    }
+
+    @Benchmark
+    public char[] hillClimbingFirstImprovement() {
+        return new QAPHillClimbing(HillClimbing.Strategy.FIRST_IMPROVEMENT, llavors).solve(simbols, columnes, freq);
+    }
+}
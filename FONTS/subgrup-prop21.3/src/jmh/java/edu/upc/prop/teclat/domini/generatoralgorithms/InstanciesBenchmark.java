@@ -0,0 +1,43 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms;
+
+import java.util.Random;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+
+/**
+ * Genera instàncies sintètiques i reproduïbles per als benchmarks dels algoritmes generadors.
+ */
+public final class InstanciesBenchmark {
+    /** Llavor per defecte de totes les instàncies, perquè els resultats siguin comparables entre execucions*/
+    public static final long LLAVOR = 42;
+
+    private InstanciesBenchmark() {}
+
+    // Retorna un alfabet de numSimbols caràcters diferents a partir de la 'a'
+    public static String simbols(int numSimbols) {
+        StringBuilder sb = new StringBuilder(numSimbols);
+        for(int i = 0; i < numSimbols; i++) {
+            sb.append((char) ('a' + i));
+        }
+        return sb.toString();
+    }
+
+    // Retorna unes freqüències aleatòries entre els símbols donats on cada parell
+    // apareix amb probabilitat densitat i un pes entre 1 i 100
+    public static PairsFrequency freqs(String simbols, double densitat, long llavor) {
+        Random random = new Random(llavor);
+        PairsFrequency freq = new PairsFrequency();
+        for(int i = 0; i < simbols.length(); i++) {
+            for(int j = i + 1; j < simbols.length(); j++) {
+                if(random.nextDouble() < densitat) {
+                    freq.put(simbols.charAt(i), simbols.charAt(j), 1 + random.nextInt(100));
+                }
+            }
+        }
+        return freq;
+    }
+
+    public static PairsFrequency freqs(String simbols, double densitat) {
+        return freqs(simbols, densitat, LLAVOR);
+    }
+}
@@ -0,0 +1,68 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.InstanciesBenchmark;
+
+/**
+ * Micro-benchmarks del càlcul del cost d'una solució de {@link QAProblem}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QAProblemBenchmark {
+    @Param({"10", "30", "60"})
+    public int numSimbols;
+
+    @Param({"3", "10"})
+    public int columnes;
+
+    @Param({"0.1", "1.0"})
+    public double densitat;
+
+    private QAProblem problem;
+    private String solucio;
+    private int[] solucioIdx;
+
+    @Setup
+    public void setup() {
+        String simbols = InstanciesBenchmark.simbols(numSimbols);
+        problem = new QAProblem(columnes, simbols, InstanciesBenchmark.freqs(simbols, densitat));
+        List<Character> llista = new ArrayList<>();
+        for(char c : simbols.toCharArray()) llista.add(c);
+        Collections.shuffle(llista, new Random(InstanciesBenchmark.LLAVOR));
+        StringBuilder sb = new StringBuilder();
+        for(char c : llista) sb.append(c);
+        solucio = sb.toString();
+        solucioIdx = problem.toIndexos(solucio.toCharArray());
+    }
+
+    @Benchmark
+    public double costSolucioString() {
+        return problem.costSolucio(solucio);
+    }
+
+    @Benchmark
+    public double costSolucioIndexos() {
+        return problem.costSolucio(solucioIdx, numSimbols);
+    }
+}
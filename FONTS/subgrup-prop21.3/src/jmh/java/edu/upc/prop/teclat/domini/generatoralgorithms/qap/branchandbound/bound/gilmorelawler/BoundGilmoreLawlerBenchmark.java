@@ -0,0 +1,83 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.InstanciesBenchmark;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Micro-benchmarks del càlcul del bound de Gilmore-Lawler sobre solucions parcials aleatòries
+ * d'una profunditat fixada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundGilmoreLawlerBenchmark {
+    /** Nombre de solucions parcials diferents que es recorren cíclicament*/
+    private static final int SOLUCIONS = 64;
+
+    @Param({"10", "20", "30"})
+    public int numSimbols;
+
+    @Param({"3", "10"})
+    public int columnes;
+
+    @Param({"0.5"})
+    public double densitat;
+
+    /** Fracció de símbols ja col·locats a cada solució parcial*/
+    @Param({"0.0", "0.5"})
+    public double profunditat;
+
+    private BoundGilmoreLawler bound;
+    private int[][] solucions;
+    private long[][] usats;
+    private int m;
+    private int actual;
+
+    @Setup
+    public void setup() {
+        String simbols = InstanciesBenchmark.simbols(numSimbols);
+        QAProblem problem = new QAProblem(columnes, simbols, InstanciesBenchmark.freqs(simbols, densitat));
+        bound = new BoundGilmoreLawler(problem);
+        m = (int) (profunditat * numSimbols);
+        Random random = new Random(InstanciesBenchmark.LLAVOR);
+        solucions = new int[SOLUCIONS][numSimbols];
+        usats = new long[SOLUCIONS][(numSimbols + 63) / 64];
+        for(int k = 0; k < SOLUCIONS; k++) {
+            int[] sol = solucions[k];
+            for(int i = 0; i < numSimbols; i++) sol[i] = i;
+            for(int i = numSimbols - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = sol[i];
+                sol[i] = sol[j];
+                sol[j] = tmp;
+            }
+            for(int i = 0; i < m; i++) {
+                usats[k][sol[i] >> 6] |= 1L << sol[i];
+            }
+        }
+    }
+
+    @Benchmark
+    public double getBound() {
+        actual = (actual + 1) % SOLUCIONS;
+        return bound.getBound(solucions[actual], m, usats[actual]);
+    }
+}
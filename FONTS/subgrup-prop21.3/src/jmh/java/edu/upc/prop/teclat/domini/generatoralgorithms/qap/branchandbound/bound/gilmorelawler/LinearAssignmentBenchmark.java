@@ -0,0 +1,62 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.InstanciesBenchmark;
+
+/**
+ * Micro-benchmarks dels algoritmes d'assignació lineal que fa servir el bound de Gilmore-Lawler.
+ * El {@link HungarianAlgorithm} fa una cerca exhaustiva de l'assignació de zeros, així que
+ * les mides per defecte són petites.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinearAssignmentBenchmark {
+    @Param({"4", "6", "8"})
+    public int r;
+
+    private double[][] cost;
+    private ShortestAugmentingPath shortestAugmentingPath;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(InstanciesBenchmark.LLAVOR);
+        cost = new double[r][r];
+        for(int i = 0; i < r; i++) {
+            for(int j = 0; j < r; j++) {
+                cost[i][j] = random.nextInt(1000) / 10.0;
+            }
+        }
+        shortestAugmentingPath = new ShortestAugmentingPath(r);
+    }
+
+    // El HungarianAlgorithm modifica la matriu, per això treballa sobre una còpia
+    @Benchmark
+    public double hungarianAlgorithm() {
+        double[][] copia = new double[r][];
+        for(int i = 0; i < r; i++) copia[i] = cost[i].clone();
+        return new HungarianAlgorithm(copia).solve();
+    }
+
+    @Benchmark
+    public double shortestAugmentingPath() {
+        return shortestAugmentingPath.solve(cost, r);
+    }
+}
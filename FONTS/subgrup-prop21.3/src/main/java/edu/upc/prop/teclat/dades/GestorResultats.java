@@ -0,0 +1,143 @@
+package edu.upc.prop.teclat.dades;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import edu.upc.prop.teclat.dades.exceptions.InvalidFileException;
+import edu.upc.prop.teclat.domini.ControladorCapaDomini;
+import edu.upc.prop.teclat.domini.ResultatGeneracio;
+
+/**
+ * Subclasse de {@link GestorFitxers} que emmagatzema la memòria cau de resultats de les
+ * generacions de teclats. Cada resultat es guarda en un fitxer amb el nom de la seva empremta.
+ */
+public class GestorResultats extends GestorFitxers{
+    /**Nom del directori creat pel programa on s'emmagatzemen els resultats de les generacions.*/
+    private static final String saveFolder = "resultats";
+
+    /**Extensió dels fitxers de resultats.*/
+    private static final String extensio = ".res";
+
+
+
+    /** Constructora que associa el gestor de resultats amb la instància del controlador
+     *  de domini indicada.
+     *
+     * @param controladorCapaDomini Instància del controlador de la capa de domini.
+     */
+    public GestorResultats(ControladorCapaDomini controladorCapaDomini) {
+        super(controladorCapaDomini, saveFolder);
+    }
+
+
+    /** Llegeix el resultat guardat al fitxer indicat pel path.
+     *
+     * @param path Path del fitxer de resultat.
+     *
+     * @return El resultat guardat al fitxer.
+     *
+     * @throws ClassNotFoundException No s'ha trobat la classe.
+     * @throws InvalidFileException El fitxer donat no té el format demanat.
+     * @throws IOException S'ha produit un error en l'entrada/sortida del programa.
+     */
+    public ResultatGeneracio importar(Path path) throws InvalidFileException, IOException, ClassNotFoundException {
+        if (!path.getFileName().toString().endsWith(extensio)) throw new InvalidFileException();
+
+        FileInputStream fis = new FileInputStream(path.toString());
+        ObjectInputStream ois = new ObjectInputStream(fis);
+        ResultatGeneracio resultat = (ResultatGeneracio) ois.readObject();
+        ois.close();
+        fis.close();
+        return resultat;
+    }
+
+
+    /** Guarda en el fitxer indicat pel path el resultat donat.
+     *
+     * @param path Path indicant el fitxer on es desa el resultat.
+     * @param resultat Resultat a desar.
+     *
+     * @throws IOException S'ha produit un error en l'entrada/sortida del programa.
+     */
+    public void exportar(Path path, ResultatGeneracio resultat) throws IOException {
+        FileOutputStream fos = new FileOutputStream(path.toString());
+        ObjectOutputStream oos = new ObjectOutputStream(fos);
+        oos.writeObject(resultat);
+        oos.close();
+        fos.close();
+    }
+
+
+    /** Actualitza al disc el resultat identificat per l'empremta {@code nom}.
+     *  Si la memòria cau del domini el conté, en reescriu el fitxer (i per tant en renova la data de
+     *  modificació, que indica quan es va fer servir per últim cop). Altrament, n'esborra el fitxer.
+     *
+     * @param nom Empremta del resultat.
+     */
+    public void guardarCanvis(String nom) {
+        Path path = Path.of(savePath + nom + extensio);
+        ResultatGeneracio resultat = controladorCapaDomini.getResultatDesat(nom);
+        try {
+            if (resultat == null) {
+                Files.deleteIfExists(path);
+            } else {
+                createAppData();
+                exportar(path, resultat);
+            }
+        } catch (IOException e) {
+            // No hauria de passar
+            e.printStackTrace();
+        }
+    }
+
+
+    /** Renova la data de modificació del fitxer del resultat identificat per l'empremta {@code nom},
+     *  que indica quan es va fer servir per últim cop, sense reescriure'l.
+     *
+     * @param nom Empremta del resultat.
+     */
+    public void marcarUs(String nom) {
+        Path path = Path.of(savePath + nom + extensio);
+        try {
+            if (Files.exists(path)) Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // No hauria de passar
+            e.printStackTrace();
+        }
+    }
+
+
+    /** Carrega a la memòria cau del domini tots els resultats emmagatzemats dins del directori
+     *  on guarda les dades aquest gestor, del que fa més temps que es va fer servir al més recent.
+    .*/
+    public void carregar() {
+        createAppData();
+        List<Path> paths;
+        try (Stream<Path> fitxers = Files.list(Path.of(savePath))) {
+            paths = fitxers.sorted(Comparator.comparing(path -> path.toFile().lastModified()))
+                           .collect(Collectors.toList());
+        } catch (IOException e) {
+            // No hauria de passar
+            e.printStackTrace();
+            return;
+        }
+        for (Path path : paths) {
+            try {
+                controladorCapaDomini.afegirResultatDesat(importar(path));
+            } catch (InvalidFileException | IOException | ClassNotFoundException | ClassCastException e) {
+                // Un fitxer corrupte o d'una versió anterior només fa perdre un resultat
+                e.printStackTrace();
+            }
+        }
+    }
+}
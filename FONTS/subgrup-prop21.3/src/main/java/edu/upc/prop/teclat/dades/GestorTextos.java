@@ -1,12 +1,21 @@
 package edu.upc.prop.teclat.dades;
 
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.io.IOException;
 
 import edu.upc.prop.teclat.dades.exceptions.InvalidFileException;
 import edu.upc.prop.teclat.domini.Alfabet;
+import edu.upc.prop.teclat.domini.ComptadorBigrames;
 import edu.upc.prop.teclat.domini.ControladorCapaDomini;
+import edu.upc.prop.teclat.domini.PairsFrequency;
 import edu.upc.prop.teclat.domini.Text;
 import edu.upc.prop.teclat.domini.exceptions.NomBuitException;
 import edu.upc.prop.teclat.domini.exceptions.NomJaExisteixException;
@@ -25,6 +34,12 @@ public class GestorTextos extends GestorFitxers{
     /**Nom del directori creat pel programa on s'emmagatzemen les dades dels textos.*/
     private static final String saveFolder = "textos";
 
+    /**Nombre màxim de bytes del fitxer que es projecten a memòria alhora en comptar-ne els parells.*/
+    private static final long MIDA_FINESTRA = 64L * 1024 * 1024;
+
+    /**Nombre de caràcters que es descodifiquen alhora en comptar els parells d'un fitxer.*/
+    private static final int MIDA_BLOC = 64 * 1024;
+
 
 
     /** Constructora que associa el gestor de textos amb la instància del controlador 
@@ -66,6 +81,79 @@ public class GestorTextos extends GestorFitxers{
     }
 
 
+    /**
+     * Calcula els parells de freqüències d'un fitxer de text sense carregar-lo sencer a memòria.
+     * El fitxer es projecta a memòria per finestres de {@value MIDA_FINESTRA} bytes que es
+     * descodifiquen en UTF-8 per blocs de {@value MIDA_BLOC} caràcters, i cada bloc s'afegeix a un
+     * {@link ComptadorBigrames}. Així la memòria necessària no depèn de la mida del fitxer.
+     *
+     * @param path Path del fitxer de text.
+     *
+     * @return Els parells de freqüències del text del fitxer.
+     *
+     * @throws IOException S'ha produit un error en l'entrada/sortida del programa, o el
+     *                     fitxer no està codificat en UTF-8.
+     * @throws InvalidFileException El fitxer no té l'extensió correcta.
+     * @throws NumSimbolsInvalidException El text del fitxer conté més de
+     *                                    {@value Alfabet#MAX_NUM_SYMBOLS} caràcters diferents.
+     */
+    public PairsFrequency comptarParells(Path path) throws IOException, InvalidFileException, NumSimbolsInvalidException {
+        return comptarParells(path, MIDA_FINESTRA);
+    }
+
+    /** Calcula els parells de freqüències d'un fitxer de text projectant-lo a memòria per finestres
+     *  de la mida indicada. Permet provar els caràcters partits entre finestres amb fitxers petits.
+     *
+     * @param path Path del fitxer de text.
+     * @param midaFinestra Nombre màxim de bytes projectats alhora. Ha de ser com a mínim 4, la
+     *                     llargada màxima d'un caràcter en UTF-8, perquè cada finestra avanci.
+     *
+     * @return Els parells de freqüències del text del fitxer.
+     *
+     * @throws IOException S'ha produit un error en l'entrada/sortida del programa, o el
+     *                     fitxer no està codificat en UTF-8.
+     * @throws InvalidFileException El fitxer no té l'extensió correcta.
+     * @throws NumSimbolsInvalidException El text del fitxer conté més de
+     *                                    {@value Alfabet#MAX_NUM_SYMBOLS} caràcters diferents.
+     */
+    PairsFrequency comptarParells(Path path, long midaFinestra) throws IOException, InvalidFileException, NumSimbolsInvalidException {
+        if (midaFinestra < 4) throw new IllegalArgumentException("La finestra ha de tenir com a mínim 4 bytes");
+        if (!path.getFileName().toString().endsWith(".txt")) throw new InvalidFileException();
+
+        ComptadorBigrames comptador = new ComptadorBigrames();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        CharBuffer bloc = CharBuffer.allocate(MIDA_BLOC);
+        try (FileChannel canal = FileChannel.open(path, StandardOpenOption.READ)) {
+            long mida = canal.size();
+            long posicio = 0;
+            boolean ultima;
+            do {
+                long llargada = Math.min(midaFinestra, mida - posicio);
+                ultima = posicio + llargada == mida;
+                MappedByteBuffer finestra = canal.map(FileChannel.MapMode.READ_ONLY, posicio, llargada);
+                CoderResult resultat;
+                do {
+                    resultat = decoder.decode(finestra, bloc, ultima);
+                    if (resultat.isError()) resultat.throwException();
+                    afegirBloc(comptador, bloc);
+                } while (resultat.isOverflow());
+                // Un caràcter partit entre dues finestres queda sense llegir i es torna a projectar
+                posicio += finestra.position();
+            } while (!ultima);
+            decoder.flush(bloc);
+            afegirBloc(comptador, bloc);
+        }
+        return comptador.getPairsFrequency();
+    }
+
+    /** Afegeix al comptador els caràcters descodificats al bloc i el deixa buit. */
+    private static void afegirBloc(ComptadorBigrames comptador, CharBuffer bloc) throws NumSimbolsInvalidException {
+        bloc.flip();
+        comptador.afegeix(bloc);
+        bloc.clear();
+    }
+
+
     /**
      *  Guarda en el fitxer indicat pel path la seqüència de 
      *  caràcters emmagatzemada a {@code contingut}.
@@ -0,0 +1,98 @@
+package edu.upc.prop.teclat.domini;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memòria cau dels resultats de les generacions de teclats, indexada per una empremta SHA-256
+ * dels símbols, el nombre de columnes, les freqüències entre els símbols i l'algorisme amb els
+ * seus paràmetres. Com que l'empremta només depèn del contingut, es manté entre execucions.
+ * Quan s'hi afegeix un resultat i se supera la mida màxima, es descarta el que fa més temps que
+ * no es consulta.
+ */
+class CacheResultats {
+    //Constants
+
+    /** Nombre màxim de resultats que es guarden. */
+    static final int MAX_ENTRADES = 256;
+
+    //Atributs
+
+    /** Resultats guardats per empremta, del consultat fa més temps al més recent. */
+    private final LinkedHashMap<String, ResultatGeneracio> resultats = new LinkedHashMap<>(16, 0.75f, true);
+
+
+    /**
+     * Retorna el resultat amb l'empremta donada i el marca com a consultat, o null si no n'hi ha cap.
+     *
+     * @param empremta Empremta del resultat.
+     *
+     * @return El resultat guardat, o null si no n'hi ha cap.
+     */
+    synchronized ResultatGeneracio get(String empremta) {
+        return resultats.get(empremta);
+    }
+
+    /**
+     * Afegeix un resultat, substituint el que tingués la mateixa empremta, i descarta els que fa
+     * més temps que no es consulten si se supera la mida màxima.
+     *
+     * @param resultat Resultat que s'afegeix.
+     *
+     * @return Les empremtes dels resultats descartats.
+     */
+    synchronized List<String> put(ResultatGeneracio resultat) {
+        resultats.put(resultat.getEmpremta(), resultat);
+        List<String> descartats = new ArrayList<>();
+        Iterator<Map.Entry<String, ResultatGeneracio>> it = resultats.entrySet().iterator();
+        while (resultats.size() > MAX_ENTRADES) {
+            descartats.add(it.next().getKey());
+            it.remove();
+        }
+        return descartats;
+    }
+
+    /**
+     * Calcula l'empremta d'un problema de generació. Cada camp va precedit de la seva mida,
+     * perquè dues combinacions diferents no puguin produir la mateixa seqüència de bytes.
+     *
+     * @param simbols Símbols del teclat.
+     * @param cols Nombre de columnes del teclat.
+     * @param pairsFreq Freqüències entre parells de símbols.
+     * @param algorisme Nom de l'algorisme amb els seus paràmetres.
+     *
+     * @return L'empremta en hexadecimal.
+     */
+    static String empremta(String simbols, int cols, PairsFrequency pairsFreq, String algorisme) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //No pot passar, totes les implementacions de Java han de suportar SHA-256
+            throw new IllegalStateException(e);
+        }
+        actualitza(sha, simbols);
+        sha.update(ByteBuffer.allocate(Integer.BYTES).putInt(cols).array());
+        int[] matriu = pairsFreq.getMatriu(simbols);
+        ByteBuffer freq = ByteBuffer.allocate(matriu.length * Integer.BYTES);
+        freq.asIntBuffer().put(matriu);
+        sha.update(freq.array());
+        actualitza(sha, algorisme);
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /** Afegeix a l'empremta un String precedit de la seva mida en bytes. */
+    private static void actualitza(MessageDigest sha, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        sha.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        sha.update(bytes);
+    }
+}
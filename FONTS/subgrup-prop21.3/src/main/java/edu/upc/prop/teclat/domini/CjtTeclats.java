@@ -8,6 +8,7 @@ import edu.upc.prop.teclat.domini.exceptions.teclat.MissingBestLayoutException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.MissingPairsFreqException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.TeclatTemporalBuitException;
 import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -424,7 +425,19 @@ class CjtTeclats {
      *                                    d’entrada és 0 o bé > {@value Alfabet#MAX_NAME_LENGTH}.
      */
     void setFreqPairsByText(String text) throws CaractersNoInclososException, TeclatTemporalBuitException, NumSimbolsInvalidException {
-        PairsFrequency parells = new PairsFrequency(text);
+        setFreqPairs(new PairsFrequency(text));
+    }
+
+    /**
+     * Sobreescriu els parells de freqüència amb els donats, ja calculats.
+     *
+     * @param parells Parells de freqüència nous.
+     *
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal.
+     * @throws CaractersNoInclososException L'alfabet del teclat temporal no conté tots els 
+     *                                      símbols necessaris per a regenerar el teclat.
+     */
+    void setFreqPairs(PairsFrequency parells) throws CaractersNoInclososException, TeclatTemporalBuitException {
         if (!alphabetContainsAll(parells.getSimbols())) throw new CaractersNoInclososException();
         pairsFreq = parells;
         eraseBestLayout();
@@ -464,12 +477,82 @@ class CjtTeclats {
      * @throws MissingPairsFreqException No s’ha donat un valor als parells de freqüència de cjtTeclats.
      */
     void regenerate(GeneratorAlgorithm algorithm) throws CaractersNoInclososException, MissingPairsFreqException, TeclatTemporalBuitException {
+        regenerate(algorithm, new SearchControl());
+    }
+
+    /**
+     * Regenera la disposició d’un teclat a partir d’un algorisme generador i els PairsFrequency
+     * guardats a cjtTeclats, respectant els límits del control rebut. Si s'esgoten abans que
+     * l'algorisme acabi, el teclat temporal es queda amb la millor disposició trobada.
+     *
+     * @param algorithm algorisme que generarà la disposició del teclat.
+     * @param control límits de temps, nodes i cancel·lació de la generació.
+     *
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal.
+     * @throws CaractersNoInclososException L'alfabet del teclat temporal no conté tots els 
+     *                                      símbols necessaris per a regenerar el teclat.
+     * @throws MissingPairsFreqException No s’ha donat un valor als parells de freqüència de cjtTeclats.
+     */
+    void regenerate(GeneratorAlgorithm algorithm, SearchControl control) throws CaractersNoInclososException, MissingPairsFreqException, TeclatTemporalBuitException {
+        regenerate(algorithm, control, false);
+    }
+
+    /**
+     * Regenera la disposició del teclat temporal com l'anterior, indicant si l'algorisme ha de
+     * partir de la disposició actual del teclat temporal en lloc de començar des de zero.
+     *
+     * @param algorithm algorisme que generarà la disposició del teclat.
+     * @param control límits de temps, nodes i cancel·lació de la generació.
+     * @param partirDeLActual Indica si l'algorisme ha de partir de la disposició actual.
+     *
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal.
+     * @throws CaractersNoInclososException L'alfabet del teclat temporal no conté tots els 
+     *                                      símbols necessaris per a regenerar el teclat.
+     * @throws MissingPairsFreqException No s’ha donat un valor als parells de freqüència de cjtTeclats.
+     */
+    void regenerate(GeneratorAlgorithm algorithm, SearchControl control, boolean partirDeLActual) throws CaractersNoInclososException, MissingPairsFreqException, TeclatTemporalBuitException {
         if (pairsFreq == null) throw new MissingPairsFreqException();
         if (temp_teclat == null) throw new TeclatTemporalBuitException();
-        temp_teclat.regenerate(algorithm, pairsFreq);
+        temp_teclat.regenerate(algorithm, pairsFreq, control, partirDeLActual);
+        updateBestLayout();
+    }
+
+    /**
+     * Sobreescriu la disposició del teclat temporal amb una de ja generada, per exemple
+     * un resultat guardat a la memòria cau.
+     *
+     * @param layout Nova disposició de símbols, recorrent el teclat per files.
+     *
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal.
+     * @throws LayoutInvalidException Els símbols de la disposició no són els de l'alfabet del teclat temporal.
+     */
+    void setLayout(char[] layout) throws TeclatTemporalBuitException, LayoutInvalidException {
+        if (temp_teclat == null) throw new TeclatTemporalBuitException();
+        try {
+            temp_teclat.setLayout(layout);
+        } catch (SimbolInvalidException | SimbolRepetitException e) {
+            throw new LayoutInvalidException();
+        }
         updateBestLayout();
     }
 
+    /**
+     * Retorna l'empremta del problema de regenerar el teclat temporal amb l'algorisme donat: els
+     * símbols del teclat, el nombre de columnes i les freqüències dels parells guardats.
+     *
+     * @param algorisme Nom de l'algorisme amb els seus paràmetres.
+     *
+     * @return L'empremta del problema en hexadecimal.
+     *
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal.
+     * @throws MissingPairsFreqException No s’ha donat un valor als parells de freqüència de cjtTeclats.
+     */
+    String empremta(String algorisme) throws TeclatTemporalBuitException, MissingPairsFreqException {
+        if (pairsFreq == null) throw new MissingPairsFreqException();
+        if (temp_teclat == null) throw new TeclatTemporalBuitException();
+        return CacheResultats.empremta(temp_teclat.getSimbolsAsString(), temp_teclat.getCols(), pairsFreq, algorisme);
+    }
+
     /**
      * Intercanvia els símbols de la disposició ubicats als índexos tecla1 i tecla2 del teclat temporal.
      *
@@ -0,0 +1,195 @@
+package edu.upc.prop.teclat.domini;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import edu.upc.prop.teclat.domini.exceptions.NumSimbolsInvalidException;
+
+/**
+ * Comptador incremental dels parells de caràcters consecutius d'un text, que el rep per trossos
+ * i no en guarda cap còpia. Segueix les mateixes regles que {@link PairsFrequency#PairsFrequency(String)}:
+ * els símbols no permesos de l'{@link Alfabet} separen els mots, només es compten els parells
+ * dins d'un mateix mot i es passen a minúscules. Un mot pot quedar partit entre dos trossos.
+ * Els comptadors són de 64 bits, de manera que un corpus molt gran no els desborda; en passar-los
+ * a un {@link PairsFrequency} s'escalen proporcionalment si no hi caben.
+ */
+public class ComptadorBigrames {
+    /**Nombre màxim de símbols registrats. Cada símbol registrat és la minúscula d'un símbol
+     * vist, i no se'n poden veure més de {@value Alfabet#MAX_NUM_SYMBOLS}.*/
+    private static final int CAPACITAT = Alfabet.MAX_NUM_SYMBOLS;
+
+    /**Nombre de símbols per als quals es reserva inicialment la matriu de freqüències.*/
+    private static final int CAPACITAT_INICIAL = 16;
+
+    /**Símbols no permesos de l'{@link Alfabet}, en una taula per no haver de consultar el
+     * TreeSet per a cada caràcter del text.*/
+    private static final BitSet SEPARADORS = new BitSet();
+    static {
+        for (char c : Alfabet.invalid_symbols) SEPARADORS.set(c);
+    }
+
+    /**Símbols registrats, ja en minúscules i en ordre d'aparició dins dels parells.*/
+    private final char[] simbols = new char[CAPACITAT];
+
+    /**Nombre de símbols registrats.*/
+    private int numSimbols = 0;
+
+    /**Taula que associa cada caràcter amb el seu índex dens més 1 (0 indica que no hi és).*/
+    private int[] indexos = new int[128];
+
+    /**Nombre de símbols que hi caben a la matriu de freqüències, que creix amb els registrats.*/
+    private int capacitat = CAPACITAT_INICIAL;
+
+    /**Matriu quadrada de freqüències indexada per índexs densos: el parell format pel símbol
+     * {@code i} seguit del {@code j} es compta a la posició {@code i*capacitat + j}. Així no cal
+     * ordenar els índexs per a cada caràcter; els dos ordres es sumen en passar-la a enters.*/
+    private long[] freq = new long[CAPACITAT_INICIAL * CAPACITAT_INICIAL];
+
+    /**Símbols diferents vistos al text, abans de passar-los a minúscules.*/
+    private final BitSet vistos = new BitSet();
+
+    /**Nombre de símbols diferents vistos al text.*/
+    private int numVistos = 0;
+
+    /**Indica si el darrer caràcter afegit pertany a un mot, és a dir, si {@code anterior} és vàlid.*/
+    private boolean dinsMot = false;
+
+    /**Darrer caràcter afegit, en minúscules.*/
+    private char anterior;
+
+    /**Índex dens del darrer caràcter afegit, o -1 si encara no s'ha registrat.*/
+    private int indexAnterior = -1;
+
+
+    /** Afegeix el tros de text donat, a continuació dels que ja s'han afegit.
+     *
+     * @param text Tros de text. Si és un {@link java.nio.CharBuffer}, se'n llegeixen els
+     *             caràcters que queden sense moure'n la posició.
+     *
+     * @throws NumSimbolsInvalidException El text afegit fins ara té més de
+     *                                    {@value Alfabet#MAX_NUM_SYMBOLS} símbols diferents.
+     */
+    public void afegeix(CharSequence text) throws NumSimbolsInvalidException {
+        final int n = text.length();
+        for (int k = 0; k < n; ++k) {
+            char c = text.charAt(k);
+            if (SEPARADORS.get(c)) {
+                dinsMot = false;
+                continue;
+            }
+            if (!vistos.get(c)) {
+                if (++numVistos > Alfabet.MAX_NUM_SYMBOLS) throw new NumSimbolsInvalidException();
+                vistos.set(c);
+            }
+
+            char actual = Minuscules.TAULA[c];
+            int i = -1;
+            if (dinsMot) {
+                //Com a PairsFrequency, el primer parell d'un mot registra el símbol actual abans que l'anterior
+                i = register(actual);
+                int j = indexAnterior >= 0 ? indexAnterior : register(anterior);
+                ++freq[i * capacitat + j];
+            }
+            anterior = actual;
+            indexAnterior = i;
+            dinsMot = true;
+        }
+    }
+
+    /** Retorna el nombre de símbols registrats als parells comptats.
+     *
+     * @return El nombre de símbols registrats.
+     */
+    int getNumSimbols() {
+        return numSimbols;
+    }
+
+    /** Retorna el símbol associat a l'índex dens donat.
+     *
+     * @param i Índex dens, entre 0 i {@link #getNumSimbols()} - 1.
+     *
+     * @return El símbol associat a l'índex {@code i}.
+     */
+    char getSimbol(int i) {
+        return simbols[i];
+    }
+
+    /** Retorna la matriu triangular de freqüències dels símbols registrats passada a enters.
+     *  Si alguna freqüència no hi cap, s'escalen totes perquè la més gran sigui
+     *  {@link Integer#MAX_VALUE}; les que no eren 0 valen com a mínim 1 perquè no es perdi cap parell.
+     *
+     * @return La matriu triangular de {@code numSimbols*(numSimbols+1)/2} freqüències.
+     */
+    int[] getFrequencies() {
+        long[] triangular = new long[triangle(numSimbols)];
+        long max = 0;
+        for (int i = 0; i < numSimbols; ++i) {
+            for (int j = 0; j <= i; ++j) {
+                long f = freq[i * capacitat + j];
+                if (j != i) f += freq[j * capacitat + i];
+                triangular[triangle(i) + j] = f;
+                max = Math.max(max, f);
+            }
+        }
+
+        double escala = max > Integer.MAX_VALUE ? (double) Integer.MAX_VALUE / max : 1;
+        int[] resultat = new int[triangular.length];
+        for (int p = 0; p < resultat.length; ++p) {
+            if (triangular[p] == 0) continue;
+            resultat[p] = (int) Math.max(1, Math.round(triangular[p] * escala));
+        }
+        return resultat;
+    }
+
+    /** Retorna els parells de freqüències comptats fins ara.
+     *
+     * @return Un nou PairsFrequency amb els parells comptats.
+     */
+    public PairsFrequency getPairsFrequency() {
+        return new PairsFrequency(this);
+    }
+
+    /** Registra el símbol donat (si no ho estava) i retorna el seu índex dens,
+     *  fent créixer la taula d'índexs quan cal.
+     *
+     * @param c Símbol a registrar.
+     *
+     * @return L'índex dens del símbol {@code c}.
+     */
+    private int register(char c) {
+        if (c < indexos.length && indexos[c] > 0) return indexos[c] - 1;
+
+        if (c >= indexos.length) indexos = Arrays.copyOf(indexos, Math.max(c + 1, 2 * indexos.length));
+        if (numSimbols == capacitat) creix();
+        simbols[numSimbols] = c;
+        indexos[c] = ++numSimbols;
+        return numSimbols - 1;
+    }
+
+    /** Duplica (fins a {@code CAPACITAT}) els símbols que hi caben a la matriu de freqüències,
+     *  copiant-ne les files ja comptades.
+     */
+    private void creix() {
+        int nova = Math.min(CAPACITAT, 2 * capacitat);
+        long[] ampliada = new long[nova * nova];
+        for (int i = 0; i < numSimbols; ++i) {
+            System.arraycopy(freq, i * capacitat, ampliada, i * nova, numSimbols);
+        }
+        freq = ampliada;
+        capacitat = nova;
+    }
+
+    /** Retorna el nombre d'elements de la matriu triangular (diagonal inclosa) de n files. */
+    private static int triangle(int n) {
+        return n * (n + 1) / 2;
+    }
+
+    /** Minúscula de cada caràcter. No depèn del text, així que es comparteix entre tots els
+     *  comptadors i només es calcula el primer cop que es fa servir. */
+    private static final class Minuscules {
+        private static final char[] TAULA = new char[Character.MAX_VALUE + 1];
+        static {
+            for (int c = 0; c <= Character.MAX_VALUE; ++c) TAULA[c] = Character.toLowerCase((char) c);
+        }
+    }
+}
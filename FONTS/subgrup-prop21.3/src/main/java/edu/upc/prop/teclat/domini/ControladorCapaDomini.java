@@ -9,6 +9,7 @@ import java.nio.file.Path;
 
 import edu.upc.prop.teclat.dades.GestorAlfabets;
 import edu.upc.prop.teclat.dades.GestorLlistesFreq;
+import edu.upc.prop.teclat.dades.GestorResultats;
 import edu.upc.prop.teclat.dades.GestorTeclats;
 import edu.upc.prop.teclat.dades.GestorTextos;
 import edu.upc.prop.teclat.dades.exceptions.InvalidFileException;
@@ -29,13 +30,21 @@ import edu.upc.prop.teclat.domini.exceptions.SimbolRepetitException;
 import edu.upc.prop.teclat.domini.exceptions.TextEstaBuitException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.CaractersNoInclososException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.IndexosInvalidsException;
+import edu.upc.prop.teclat.domini.exceptions.teclat.LayoutInvalidException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.MissingBestLayoutException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.MissingPairsFreqException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.TeclatTemporalBuitException;
+import edu.upc.prop.teclat.domini.generatoralgorithms.CancellationToken;
 import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.genetic.GeneticGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
 import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems.QAPHillClimbing;
+import edu.upc.prop.teclat.domini.generatoralgorithms.lns.LargeNeighbourhoodSearchGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.portfolio.PortfolioGenerator;
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.GreedyGenerator;
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.BranchAndBoundGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.simulatedannealing.SimulatedAnnealingGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.tabusearch.TabuSearchGenerator;
 import edu.upc.prop.teclat.util.Pair;
 
 /**
@@ -55,11 +64,31 @@ public class ControladorCapaDomini {
     /** Algoritme Greedy per generar el teclat*/
     private final String algorisme_Greedy = "Greedy";
 
+    /** Algoritme Simulated Annealing per generar el teclat*/
+    private final String algorisme_SA = "Simulated Annealing";
+
+    /** Algoritme Tabu Search per generar el teclat*/
+    private final String algorisme_TS = "Tabu Search";
+
+    /** Algoritme genètic per generar el teclat*/
+    private final String algorisme_GA = "Genetic Algorithm";
+
+    /** Algoritme Large Neighbourhood Search per generar el teclat*/
+    private final String algorisme_LNS = "Large Neighbourhood Search";
+
+    /** Portfolio que executa alhora tots els altres algoritmes per generar el teclat*/
+    private final String algorisme_Portfolio = "Portfolio";
+
     /** Estructura on emmagatzemar les associacions d'algorismes generadors amb els seus noms*/
     private final LinkedHashMap<String, GeneratorAlgorithm> algorismes = new LinkedHashMap<String, GeneratorAlgorithm>() {{
         put(algorisme_HC,       new QAPHillClimbing());
         put(algorisme_Greedy,   new GreedyGenerator());
         put(algorisme_BnB,      new BranchAndBoundGenerator());
+        put(algorisme_SA,       new SimulatedAnnealingGenerator());
+        put(algorisme_TS,       new TabuSearchGenerator());
+        put(algorisme_GA,       new GeneticGenerator());
+        put(algorisme_LNS,      new LargeNeighbourhoodSearchGenerator());
+        put(algorisme_Portfolio, new PortfolioGenerator(new ArrayList<>(values())));
     }};
 
     //Atributs
@@ -75,6 +104,9 @@ public class ControladorCapaDomini {
     /** Instància per la persistència de textos*/
     GestorTextos gestorTextos;
 
+    /** Instància per la persistència dels resultats de les generacions*/
+    GestorResultats gestorResultats;
+
     /** Instància pels conjunts d'alfabets */
     CjtAlfabets cjtAlfabets;
 
@@ -87,6 +119,18 @@ public class ControladorCapaDomini {
     /** Instància pels conjunts de textos */
     CjtTextos cjtTextos;
 
+    /** Memòria cau dels resultats de les generacions de teclats */
+    CacheResultats cacheResultats;
+
+    /** Resultat de l'última regeneració, o null si encara no n'hi ha hagut cap */
+    private volatile ResultatGeneracio ultimaRegeneracio = null;
+
+    /** Indica si l'última regeneració s'ha obtingut de la memòria cau */
+    private volatile boolean ultimaRegeneracioDeCache = false;
+
+    /** Token de cancel·lació de la regeneració en curs, o null si no n'hi ha cap */
+    private volatile CancellationToken regeneracioEnCurs = null;
+
     // Constructora
     /** Constructora per defecte
      *	Inicialitza totes les instàncies dels conjunts i de les classes de persistència.
@@ -96,6 +140,7 @@ public class ControladorCapaDomini {
         cjtTeclats = new CjtTeclats();
         cjtLlistesDeFrequencia = new CjtLlistesDeFrequencia();
         cjtTextos = new CjtTextos();
+        cacheResultats = new CacheResultats();
 
         gestorTeclats = new GestorTeclats(this);
         gestorTeclats.carregar();
@@ -105,6 +150,8 @@ public class ControladorCapaDomini {
         gestorLlistesFreq.carregar();
         gestorTextos = new GestorTextos(this);
         gestorTextos.carregar();
+        gestorResultats = new GestorResultats(this);
+        gestorResultats.carregar();
     }
 
     /**
@@ -1031,6 +1078,25 @@ public class ControladorCapaDomini {
         }
     }
 
+    /**
+     * Sobreescriu els parells de freqüències del conjunt de teclats amb uns de nous generats
+     * a partir del fitxer de text indicat pel path. El fitxer es llegeix per trossos i no s'afegeix
+     * al Sistema, de manera que pot ser molt més gran que la memòria disponible.
+     *
+     * @param path Path del fitxer de text del que obtenir els nous parells de freqüències.
+     *
+     * @throws IOException S'ha produit un error en l'entrada/sortida del programa.
+     * @throws InvalidFileException El fitxer no té l'extensió correcta.
+     * @throws NumSimbolsInvalidException El text del fitxer conté més de
+     *                                    {@value Alfabet#MAX_NUM_SYMBOLS} caràcters diferents.
+     * @throws CaractersNoInclososException L'alfabet del teclat temporal del conjunt de teclats no 
+     *                                      conté tots els símbols del text del fitxer.
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal del conjunt de teclats.
+     */
+    public void setFreqPairsByFitxerTeclat(Path path) throws IOException, InvalidFileException, NumSimbolsInvalidException, CaractersNoInclososException, TeclatTemporalBuitException {
+        cjtTeclats.setFreqPairs(gestorTextos.comptarParells(path));
+    }
+
     /**
      * Regenera la disposició del teclat temporal del conjunt de teclats, indicant el nom de 
      * l'algorisme generador a emprar i utilitzant els parells de freqüències guardats al conjunt
@@ -1046,16 +1112,158 @@ public class ControladorCapaDomini {
      *                                   conjunt de teclats.
      */
     public void regenerarTeclat(String algorisme_seleccionat) throws MissingPairsFreqException, TeclatTemporalBuitException, InvalidGeneratorAlgorithmException {
+        regenerarTeclat(algorisme_seleccionat, SearchControl.SENSE_LIMIT);
+    }
+
+    /**
+     * Regenera la disposició del teclat temporal del conjunt de teclats amb un temps màxim.
+     * Si l'algorisme no acaba dins del temps indicat, o es crida {@link #cancelarRegeneracio()}
+     * des d'un altre fil, el teclat temporal es queda amb la millor disposició trobada fins llavors.
+     * Si ja s'havia resolt el mateix problema (símbols, columnes, freqüències, algorisme amb els
+     * seus paràmetres i temps màxim), es recupera el resultat de la memòria cau sense executar
+     * l'algorisme. Només s'hi guarden els resultats reproduïbles: els dels algorismes deterministes
+     * (els exactes, o els aleatoris amb una llavor fixada) quan cap fase de la regeneració no s'ha
+     * aturat per un temps màxim ni per una cancel·lació. Els algorismes aleatoris sense llavor
+     * fixada sempre s'executen de nou.
+     *
+     * @param algorisme_seleccionat Nom de l'algorisme amb el que es generarà la nova disposició
+     *                              del teclat temporal del conjunt de teclats.
+     * @param limitMillis Temps màxim de la generació en mil·lisegons, o {@link SearchControl#SENSE_LIMIT}.
+     *
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal del conjunt de teclats.
+     * @throws InvalidGeneratorAlgorithmException L'algorisme generador al que s'intenta cridar 
+     *                                            no existeix.
+     * @throws MissingPairsFreqException No s’ha donat un valor als parells de freqüències del 
+     *                                   conjunt de teclats.
+     */
+    public void regenerarTeclat(String algorisme_seleccionat, long limitMillis) throws MissingPairsFreqException, TeclatTemporalBuitException, InvalidGeneratorAlgorithmException {
+        regenerarTeclat(algorisme_seleccionat, limitMillis, false);
+    }
+
+    /**
+     * Regenera la disposició del teclat temporal del conjunt de teclats amb un temps màxim, com
+     * l'anterior, i permet reoptimitzar-la partint de la disposició actual en lloc de començar des
+     * de zero. Després d'un canvi petit dels parells de freqüències, o d'haver intercanviat algunes
+     * tecles a mà, la reoptimització acaba molt abans que una generació completa. Els resultats
+     * que parteixen de la disposició actual es guarden a la memòria cau amb aquesta disposició.
+     *
+     * @param algorisme_seleccionat Nom de l'algorisme amb el que es generarà la nova disposició
+     *                              del teclat temporal del conjunt de teclats.
+     * @param limitMillis Temps màxim de la generació en mil·lisegons, o {@link SearchControl#SENSE_LIMIT}.
+     * @param partirDeLActual Indica si l'algorisme ha de partir de la disposició actual del teclat temporal.
+     *
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal del conjunt de teclats.
+     * @throws InvalidGeneratorAlgorithmException L'algorisme generador al que s'intenta cridar 
+     *                                            no existeix.
+     * @throws MissingPairsFreqException No s’ha donat un valor als parells de freqüències del 
+     *                                   conjunt de teclats.
+     */
+    public void regenerarTeclat(String algorisme_seleccionat, long limitMillis, boolean partirDeLActual) throws MissingPairsFreqException, TeclatTemporalBuitException, InvalidGeneratorAlgorithmException {
         GeneratorAlgorithm algorithm = algorismes.get(algorisme_seleccionat);
         if (algorithm == null) throw new InvalidGeneratorAlgorithmException();
+        String problema = algorisme_seleccionat + "|" + algorithm.getConfiguracio() + "|" + limitMillis;
+        if (partirDeLActual) problema += "|" + new String(cjtTeclats.getLayout());
+        String empremta = cjtTeclats.empremta(problema);
+        ResultatGeneracio desat = algorithm.esDeterminista() ? cacheResultats.get(empremta) : null;
+        if (desat != null) {
+            try {
+                cjtTeclats.setLayout(desat.getLayout());
+                ultimaRegeneracio = desat;
+                ultimaRegeneracioDeCache = true;
+                gestorResultats.marcarUs(empremta);
+                return;
+            } catch (LayoutInvalidException e) {
+                //Només pot passar si el fitxer del resultat s'ha modificat, i llavors es torna a generar
+                e.printStackTrace();
+            }
+        }
+
+        CancellationToken token = new CancellationToken();
+        regeneracioEnCurs = token;
         try {
-            cjtTeclats.regenerate(algorithm);
+            long inici = System.nanoTime();
+            SearchControl control = new SearchControl(limitMillis, SearchControl.SENSE_LIMIT, token, null);
+            cjtTeclats.regenerate(algorithm, control, partirDeLActual);
+            long millis = (System.nanoTime() - inici) / 1_000_000;
+            ResultatGeneracio resultat = new ResultatGeneracio(empremta, cjtTeclats.getLayout(), cjtTeclats.getCost(), millis);
+            ultimaRegeneracio = resultat;
+            ultimaRegeneracioDeCache = false;
+            //Un resultat aturat pel temps o per una cancel·lació, encara que sigui el d'una sola fase
+            //(com el límit propi d'un portfolio), depèn de la velocitat de l'execució
+            if (algorithm.esDeterminista() && !control.isTruncated()) {
+                afegirResultatDesat(resultat);
+                gestorResultats.guardarCanvis(empremta);
+            }
         } catch (CaractersNoInclososException e) {
             //No pot passar
             e.printStackTrace();
+        } finally {
+            if (regeneracioEnCurs == token) regeneracioEnCurs = null;
+        }
+    }
+
+    /**
+     * Retorna el cost de la disposició obtinguda a l'última regeneració del teclat temporal.
+     *
+     * @return El cost de l'última regeneració, o {@link Double#NaN} si encara no n'hi ha hagut cap.
+     */
+    public double getCostUltimaRegeneracio() {
+        ResultatGeneracio resultat = ultimaRegeneracio;
+        return resultat == null ? Double.NaN : resultat.getCost();
+    }
+
+    /**
+     * Retorna el temps que va trigar l'algorisme de l'última regeneració del teclat temporal. Si
+     * el resultat s'ha obtingut de la memòria cau, és el temps de la generació original.
+     *
+     * @return El temps de l'última regeneració en mil·lisegons, o -1 si encara no n'hi ha hagut cap.
+     */
+    public long getTempsUltimaRegeneracio() {
+        ResultatGeneracio resultat = ultimaRegeneracio;
+        return resultat == null ? -1 : resultat.getMillis();
+    }
+
+    /**
+     * Retorna si l'última regeneració del teclat temporal s'ha obtingut de la memòria cau.
+     *
+     * @return True si l'última regeneració s'ha obtingut de la memòria cau. Altrament, false.
+     */
+    public boolean isUltimaRegeneracioDeCache() {
+        return ultimaRegeneracioDeCache;
+    }
+
+    /**
+     * Retorna el resultat de generació guardat amb l'empremta donada.
+     *
+     * @param empremta Empremta del resultat.
+     *
+     * @return El resultat guardat, o null si no n'hi ha cap.
+     */
+    public ResultatGeneracio getResultatDesat(String empremta) {
+        return cacheResultats.get(empremta);
+    }
+
+    /**
+     * Afegeix un resultat de generació a la memòria cau. Els fitxers dels resultats que se'n
+     * descarten per fer-hi lloc s'esborren.
+     *
+     * @param resultat Resultat que s'afegeix.
+     */
+    public void afegirResultatDesat(ResultatGeneracio resultat) {
+        for (String descartat : cacheResultats.put(resultat)) {
+            gestorResultats.guardarCanvis(descartat);
         }
     }
 
+    /**
+     * Demana que la regeneració de teclat en curs s'aturi. La regeneració acaba tan aviat com
+     * pot i deixa al teclat temporal la millor disposició trobada. Si no n'hi ha cap, no fa res.
+     */
+    public void cancelarRegeneracio() {
+        CancellationToken token = regeneracioEnCurs;
+        if (token != null) token.cancel();
+    }
+
     /**
      * Intercanvia els símbols ubicats als índexos tecla1 i tecla2 dins la disposició del teclat 
      * temporal del conjunt de teclats.
@@ -1,6 +1,6 @@
 package edu.upc.prop.teclat.domini;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeSet;
 
@@ -14,8 +14,21 @@ import edu.upc.prop.teclat.domini.exceptions.*;
  * @author David Vilar (david.vilar.gallego@estudiantat.upc.edu)
  */
 public class PairsFrequency implements Serializable {
-    /**Emmagatzema les associacions de parells de caràcters amb les seves freqüències*/
-    private HashMap<String, Integer> freq = new HashMap<String, Integer>();
+    /**Capacitat inicial (en nombre de símbols) de les taules de freqüències.*/
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**Símbols registrats, en ordre d'aparició. La posició de cada símbol és el seu índex dens.*/
+    private char[] simbols = new char[INITIAL_CAPACITY];
+
+    /**Nombre de símbols registrats.*/
+    private int numSimbols = 0;
+
+    /**Taula que associa cada caràcter amb el seu índex dens més 1 (0 indica que no hi és).*/
+    private int[] indexos = new int[128];
+
+    /**Matriu triangular inferior (diagonal inclosa) de freqüències indexada per índexs densos.
+     * El parell (i, j) amb i &gt;= j es troba a la posició {@code i*(i+1)/2 + j}.*/
+    private int[] freq = new int[triangle(INITIAL_CAPACITY)];
     
     //Constructores
     /**
@@ -32,21 +45,18 @@ public class PairsFrequency implements Serializable {
      * @throws NumSimbolsInvalidException L'String donat està buit o té més de 100 símbols diferents.
      */
     public PairsFrequency(String text) throws NumSimbolsInvalidException {
-        //Si no té símbols vàlids o bé en té massa, no permetem crear el PairsFrequency
-        TreeSet<Character> symbols = obtainSymbolsFromString(text);
-        if (symbols.size() > Alfabet.MAX_NUM_SYMBOLS) throw new NumSimbolsInvalidException();
+        //Comptem els parells sense partir el text en mots
+        ComptadorBigrames comptador = new ComptadorBigrames();
+        comptador.afegeix(text);
+        carrega(comptador);
+    }
 
-        //Obtenim els mots que la seqüència d'entrada pugui contenir 
-        //partint en 2 allà on hi hagi caràcters invàlids
-        String[] words = text.split("[ ,.\\r\\n\\t\\f]");
-        for (int i = 0; i < words.length; ++i) {
-            try {
-                processString(words[i], 1);
-            } catch (SimbolInvalidException e) {
-                // No pot passar
-                e.printStackTrace();
-            }
-        }
+    /** Construeix un PairsFrequency amb els parells comptats pel comptador donat.
+     *
+     * @param comptador Comptador dels parells d'un text.
+     */
+    PairsFrequency(ComptadorBigrames comptador) {
+        carrega(comptador);
     }
 
     /** Construeix un PairsFrequency a partir del mapa donat.
@@ -87,22 +97,85 @@ public class PairsFrequency implements Serializable {
      *         parells de caràcters que té.
      */
     public TreeSet<Character> getSimbols() {
-        StringBuilder sequence = new StringBuilder();
-        for (Map.Entry<String, Integer> entry : freq.entrySet()) {
-            sequence.append(entry.getKey());
-        }
-        return obtainSymbolsFromString(sequence.toString());
+        return obtainSymbolsFromString(new String(simbols, 0, numSimbols));
+    }
+
+    /** Retorna el nombre de símbols registrats, és a dir, el nombre d'índexs densos vàlids.
+     *
+     * @return El nombre de símbols registrats.
+     */
+    public int getNumSimbols() {
+        return numSimbols;
+    }
+
+    /** Retorna l'índex dens del símbol donat.
+     *
+     * @param c Un símbol qualsevol.
+     *
+     * @return L'índex dens de {@code c}, o -1 si no apareix a cap parell.
+     */
+    public int getIndex(char c) {
+        return c < indexos.length ? indexos[c] - 1 : -1;
+    }
+
+    /** Retorna el símbol associat a l'índex dens donat.
+     *
+     * @param i Índex dens, entre 0 i {@link #getNumSimbols()} - 1.
+     *
+     * @return El símbol associat a l'índex {@code i}.
+     */
+    public char getSimbol(int i) {
+        return simbols[i];
     }
-    
 
     /** Funció que retorna la freqüència associada al parell de caràcters ab.
      *
      * @return La freqüència associada al parell de caràcters ab.
      */
     public int get(char a, char b) {
-        Integer f = freq.get(getPair(a, b));
-        if (f != null) return f;
-        else return 0;
+        int i = getIndex(a);
+        int j = getIndex(b);
+        if (i < 0 || j < 0) return 0;
+        return get(i, j);
+    }
+
+    /** Retorna la freqüència associada al parell de símbols amb índexs densos i i j.
+     *  No fa cap reserva de memòria, de manera que els algorismes generadors la poden
+     *  cridar directament dins dels bucles de càlcul del cost.
+     *
+     * @param i Índex dens del símbol 1 (vegeu {@link #getIndex(char)}).
+     * @param j Índex dens del símbol 2 (vegeu {@link #getIndex(char)}).
+     *
+     * @return La freqüència associada al parell de símbols ij.
+     */
+    public int get(int i, int j) {
+        return freq[position(i, j)];
+    }
+
+    /** Retorna la matriu de freqüències, completa i simètrica, dels símbols donats i en el seu
+     *  mateix ordre: la freqüència del parell format per {@code simbols.charAt(i)} i
+     *  {@code simbols.charAt(j)} es troba a la posició {@code i*simbols.length() + j}.
+     *
+     * @param simbols Seqüència de símbols que indexa la matriu.
+     *
+     * @return La matriu de freqüències dels símbols donats emmagatzemada per files.
+     */
+    public int[] getMatriu(String simbols) {
+        final int n = simbols.length();
+        int[] idx = new int[n];
+        for (int i = 0; i < n; ++i) idx[i] = getIndex(simbols.charAt(i));
+
+        int[] matriu = new int[n * n];
+        for (int i = 0; i < n; ++i) {
+            if (idx[i] < 0) continue;
+            for (int j = i; j < n; ++j) {
+                if (idx[j] < 0) continue;
+                int f = get(idx[i], idx[j]);
+                matriu[i*n + j] = f;
+                matriu[j*n + i] = f;
+            }
+        }
+        return matriu;
     }
 
     /** Sobreescriu la freqüència associada al parell de caràcters ab per {@code val}.
@@ -112,7 +185,10 @@ public class PairsFrequency implements Serializable {
      * @param val Nou valor que es vol donar a la freqüència associada al parell ab.
      */
     public void put(char a, char b, int val) {
-        freq.put(getPair(a, b), val);
+        //Cal registrar els símbols abans d'accedir a la taula, ja que pot créixer
+        int i = register(a);
+        int j = register(b);
+        freq[position(i, j)] = val;
     }
 
     /** Suma {@code val} a la freqüència associada al parell de caràcters ab.
@@ -122,9 +198,19 @@ public class PairsFrequency implements Serializable {
      * @param val Valor que es vol sumar a la freqüència associada al parell ab.
      */
     public void add(char a, char b, int val) {
-        String s = getPair(a, b);
-        if (freq.containsKey(s)) freq.put(s, freq.get(s) + val);
-        else freq.put(s, val);
+        int i = register(a);
+        int j = register(b);
+        freq[position(i, j)] += val;
+    }
+
+    /** Registra els símbols del comptador donat en el mateix ordre i en copia les freqüències.
+     *
+     * @param comptador Comptador dels parells d'un text.
+     */
+    private void carrega(ComptadorBigrames comptador) {
+        for (int i = 0; i < comptador.getNumSimbols(); ++i) register(comptador.getSimbol(i));
+        int[] frequencies = comptador.getFrequencies();
+        System.arraycopy(frequencies, 0, freq, 0, frequencies.length);
     }
 
     /** Processa un String per tal d'obtenir tots els parells de caràcters que conté. 
@@ -151,20 +237,48 @@ public class PairsFrequency implements Serializable {
         }
     }
 
-    /** Funció que, donats dos símbols, retorna el parell que formen, 
-     *  ordenant-los lexicogràficament.
+    /** Registra el símbol donat (si no ho estava) i retorna el seu índex dens,
+     *  fent créixer les taules internes quan cal.
      *
-     * @param a Símbol 1.
-     * @param b Símbol 2.
+     * @param c Símbol a registrar.
      *
-     * @return El parell que formen els símbols donats, ordenant-los lexicogràficament.
+     * @return L'índex dens del símbol {@code c}.
      */
-    private String getPair(char a, char b) {
-        if(a > b) {
-            return String.valueOf(a) + String.valueOf(b);
-        } else {
-            return String.valueOf(b) + String.valueOf(a);
+    private int register(char c) {
+        int i = getIndex(c);
+        if (i >= 0) return i;
+
+        if (c >= indexos.length) indexos = Arrays.copyOf(indexos, Math.max(c + 1, 2 * indexos.length));
+        if (numSimbols == simbols.length) {
+            //Com que la matriu és triangular per files, afegir un símbol 
+            //només afegeix una fila al final i no cal recol·locar res
+            simbols = Arrays.copyOf(simbols, 2 * simbols.length);
+            freq = Arrays.copyOf(freq, triangle(simbols.length));
         }
+        simbols[numSimbols] = c;
+        indexos[c] = ++numSimbols;
+        return numSimbols - 1;
+    }
+
+    /** Retorna la posició dins de la matriu triangular del parell d'índexs densos ij.
+     *
+     * @param i Índex dens del símbol 1.
+     * @param j Índex dens del símbol 2.
+     *
+     * @return La posició del parell ij dins de {@code freq}.
+     */
+    private static int position(int i, int j) {
+        return i >= j ? triangle(i) + j : triangle(j) + i;
+    }
+
+    /** Retorna el nombre d'elements de la matriu triangular (diagonal inclosa) de n files.
+     *
+     * @param n Nombre de files.
+     *
+     * @return n*(n+1)/2.
+     */
+    private static int triangle(int n) {
+        return n * (n + 1) / 2;
     }
 
     /** Retorna els símbols que conté l'String donat.
@@ -0,0 +1,72 @@
+package edu.upc.prop.teclat.domini;
+
+import java.io.Serializable;
+
+/**
+ * Resultat d'una generació de teclat guardat a la memòria cau: la disposició obtinguda, el seu
+ * cost i el temps que va trigar l'algorisme, identificats per l'empremta del problema resolt.
+ */
+public class ResultatGeneracio implements Serializable {
+    /** Versió de serialització, fixada perquè els fitxers .res desats es continuïn podent carregar
+     *  després de canviar la classe. */
+    private static final long serialVersionUID = 1L;
+
+    /** Empremta del problema i l'algorisme que han produït el resultat. */
+    private final String empremta;
+
+    /** Disposició de símbols generada, recorrent el teclat per files. */
+    private final char[] layout;
+
+    /** Cost de la disposició generada. */
+    private final double cost;
+
+    /** Temps que va trigar la generació, en mil·lisegons. */
+    private final long millis;
+
+    /**
+     * Constructora d'un resultat de generació.
+     *
+     * @param empremta Empremta del problema i l'algorisme que han produït el resultat.
+     * @param layout Disposició de símbols generada.
+     * @param cost Cost de la disposició generada.
+     * @param millis Temps que va trigar la generació, en mil·lisegons.
+     */
+    public ResultatGeneracio(String empremta, char[] layout, double cost, long millis) {
+        this.empremta = empremta;
+        this.layout = layout.clone();
+        this.cost = cost;
+        this.millis = millis;
+    }
+
+    /**
+     * Retorna l'empremta del problema i l'algorisme que han produït el resultat.
+     * @return L'empremta del resultat.
+     */
+    public String getEmpremta() {
+        return empremta;
+    }
+
+    /**
+     * Retorna una còpia de la disposició de símbols generada.
+     * @return La disposició de símbols generada.
+     */
+    public char[] getLayout() {
+        return layout.clone();
+    }
+
+    /**
+     * Retorna el cost de la disposició generada.
+     * @return El cost de la disposició generada.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Retorna el temps que va trigar la generació.
+     * @return El temps de la generació, en mil·lisegons.
+     */
+    public long getMillis() {
+        return millis;
+    }
+}
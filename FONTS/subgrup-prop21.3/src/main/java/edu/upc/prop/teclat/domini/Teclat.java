@@ -6,6 +6,8 @@ import java.lang.Math;
 
 import edu.upc.prop.teclat.domini.exceptions.SimbolInvalidException;
 import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.DistanceMatrix;
 import edu.upc.prop.teclat.domini.exceptions.NomBuitException;
 import edu.upc.prop.teclat.domini.exceptions.NomMassaLlargException;
 import edu.upc.prop.teclat.domini.exceptions.NomProhibitException;
@@ -25,6 +27,10 @@ import edu.upc.prop.teclat.domini.exceptions.teclat.MissingPairsFreqException;
 public class Teclat implements Serializable {
     //Constants
 
+    /**Versió de serialització, fixada a la dels teclats desats abans d'afegir mètodes nous,
+     * perquè els fitxers .tcl existents es continuïn podent carregar.*/
+    private static final long serialVersionUID = -2124501635995002416L;
+
     /**Llargada màxima permesa pel nom.*/
     public static final int MAX_NAME_LENGTH = 100;
 
@@ -157,19 +163,25 @@ public class Teclat implements Serializable {
     double getCost(PairsFrequency pairsFreq) throws MissingPairsFreqException {
         if (pairsFreq == null) throw new MissingPairsFreqException();
 
+        //Traduïm el layout a índexs densos del PairsFrequency un sol cop,
+        //així el bucle de càlcul del cost no fa cap reserva de memòria
+        int[] idx = new int[layout.length];
+        for (int i = 0; i < layout.length; ++i) idx[i] = pairsFreq.getIndex(layout[i]);
+
+        //Les distàncies entre tecles només depenen de les dimensions del teclat
+        DistanceMatrix distancies = DistanceMatrix.of(layout.length, cols);
+
         //Tractem totes les combinacions de símbols possibles dins del teclat
         //sense repetir combinacions de símbols ja tractades
         double cost = 0;
         for (int i = 0; i < layout.length; ++i) {
-            int row_i = i / cols;
-            int col_i = i % cols;
+            if (idx[i] < 0) continue;
             for (int j = i + 1; j < layout.length; ++j) {
-                int row_j = j / cols;
-                int col_j = j % cols;
+                if (idx[j] < 0) continue;
 
                 //Afegim la freqüència del parell de caràcters 
                 //multiplicada per la seva distància dins del layout
-                cost += pairsFreq.get(layout[i], layout[j]) * distance(row_i, col_i, row_j, col_j);
+                cost += pairsFreq.get(idx[i], idx[j]) * distancies.get(i, j);
             }
         }
         return cost;
@@ -274,8 +286,8 @@ public class Teclat implements Serializable {
 
         //Obtenim els símbols de la seqüència de caràcters d'entrada
         TreeSet<Character> input_symbols = new TreeSet<>();
-        for (int i = 0; i < layout.length; ++i) {
-            char c = layout[i];
+        for (int i = 0; i < input_layout.length; ++i) {
+            char c = input_layout[i];
             if (Alfabet.invalid_symbols.contains(c)) throw new SimbolInvalidException();
             if (input_symbols.contains(c)) throw new SimbolRepetitException();
             input_symbols.add(c);
@@ -300,13 +312,45 @@ public class Teclat implements Serializable {
      * @throws CaractersNoInclososException L'alfabet del teclat no conté tots els símbols necessaris per a regenerar el teclat.
      */
     void regenerate(GeneratorAlgorithm algorithm, PairsFrequency pairs) throws CaractersNoInclososException {
+        regenerate(algorithm, pairs, new SearchControl());
+    }
+
+    /**
+     * Modifica la disposició dels símbols del teclat a partir de l'algorisme generador donat i les
+     * freqüències del {@link PairsFrequency} donat, respectant els límits del {@link SearchControl}.
+     * Si la generació s'atura abans d'acabar, el teclat es queda amb la millor disposició trobada.
+     *
+     * @param algorithm L'algorisme generador que s'aplicarà per a regenerar la disposició dels símbols.
+     * @param pairs El {@link PairsFrequency} emprat a l'algorisme generador.
+     * @param control Límits de la generació i receptor de les solucions que va trobant.
+     *
+     * @throws CaractersNoInclososException L'alfabet del teclat no conté tots els símbols necessaris per a regenerar el teclat.
+     */
+    void regenerate(GeneratorAlgorithm algorithm, PairsFrequency pairs, SearchControl control) throws CaractersNoInclososException {
+        regenerate(algorithm, pairs, control, false);
+    }
+
+    /**
+     * Modifica la disposició dels símbols del teclat com l'anterior, però permet partir de la
+     * disposició actual en lloc de començar des de zero: les cerques locals hi comencen i el
+     * Branch&amp;Bound la fa servir com a primera cota. Després d'un canvi petit de les freqüències
+     * o d'haver intercanviat algunes tecles a mà, la reoptimització és molt més ràpida.
+     *
+     * @param algorithm L'algorisme generador que s'aplicarà per a regenerar la disposició dels símbols.
+     * @param pairs El {@link PairsFrequency} emprat a l'algorisme generador.
+     * @param control Límits de la generació i receptor de les solucions que va trobant.
+     * @param partirDeLActual Indica si l'algorisme ha de partir de la disposició actual.
+     *
+     * @throws CaractersNoInclososException L'alfabet del teclat no conté tots els símbols necessaris per a regenerar el teclat.
+     */
+    void regenerate(GeneratorAlgorithm algorithm, PairsFrequency pairs, SearchControl control, boolean partirDeLActual) throws CaractersNoInclososException {
         //Comprovem si hi ha símbols conflictius no continguts a l'alfabet del teclat
         TreeSet<Character> symbols_alphabet = alfabet.getSimbols();
         TreeSet<Character> symbols_pairs = pairs.getSimbols();
         if (!symbols_alphabet.containsAll(symbols_pairs)) throw new CaractersNoInclososException();
 
         //Generem una nova disposició de tecles (layout) pel teclat
-        layout = algorithm.solve(alfabet.getSimbolsAsString(), cols, pairs);
+        layout = algorithm.solve(alfabet.getSimbolsAsString(), cols, pairs, partirDeLActual ? layout.clone() : null, control);
     }
 
     /**
@@ -341,18 +385,4 @@ public class Teclat implements Serializable {
     private int missingSideLength(int side_length) {
         return (int)Math.ceil((double)layout.length / side_length);
     }
-
-    /**
-     * Retorna la distància Euclidiana entre dos punts.
-     *
-     * @param x1 coordenada x del punt 1.
-     * @param y1 coordenada y del punt 1.
-     * @param x2 coordenada x del punt 2.
-     * @param y2 coordenada y del punt 2.
-     * 
-     * @return La distància entre els punts 1 i 2.
-     */
-    private double distance(int x1, int y1, int x2, int y2) {
-        return Math.sqrt(Math.pow(x2-x1, 2) + Math.pow(y2-y1, 2));
-    }
 }
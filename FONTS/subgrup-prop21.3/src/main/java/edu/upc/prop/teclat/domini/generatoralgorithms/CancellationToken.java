@@ -0,0 +1,17 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms;
+
+/**
+ * Senyal compartit per demanar, des de qualsevol fil, que una generació en curs s'aturi.
+ */
+public final class CancellationToken {
+    private volatile boolean cancelat = false;
+
+    // Demana l'aturada de totes les cerques que facin servir aquest token
+    public void cancel() {
+        cancelat = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelat;
+    }
+}
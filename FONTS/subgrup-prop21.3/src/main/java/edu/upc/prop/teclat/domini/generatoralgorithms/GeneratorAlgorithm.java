@@ -1,6 +1,7 @@
 package edu.upc.prop.teclat.domini.generatoralgorithms;
 
 import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
 
 /**
  * Representa un algoritme de generació de disposició de lletres en teclats.
@@ -10,4 +11,45 @@ public interface GeneratorAlgorithm {
 
     // Retorna una disposició de lletres generada a partir dels simbols, nombre de columnes i pares de freqüència proporcionats.
     char[] solve(String simbols, int cols, PairsFrequency pairsFreq);
+
+    // Igual que l'anterior, però respectant els límits i la cancel·lació del control donat i
+    // notificant-li les solucions trobades. Si s'atura abans d'hora, retorna la millor solució
+    // trobada fins llavors. Per defecte resol el problema sencer i només notifica el resultat
+    default char[] solve(String simbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
+        char[] layout = solve(simbols, cols, pairsFreq);
+        control.reportSolution(layout, new QAProblem(cols, simbols, pairsFreq).costSolucio(new String(layout)));
+        return layout;
+    }
+
+    // Igual que l'anterior, però partint del layout donat (per exemple, l'actual del teclat), que ha
+    // de ser una permutació de simbols, o des de zero si és null. Les cerques locals hi comencen la
+    // cerca i el Branch And Bound el fa servir com a primera cota superior, de manera que després
+    // d'un canvi petit de les freqüències la reoptimització és molt més ràpida. Per defecte resol
+    // el problema des de zero i retorna el millor entre el resultat i el layout donat
+    default char[] solve(String simbols, int cols, PairsFrequency pairsFreq, char[] layoutInicial, SearchControl control) {
+        if(layoutInicial == null) return solve(simbols, cols, pairsFreq, control);
+        QAProblem problem = new QAProblem(cols, simbols, pairsFreq);
+        if(!problem.esLayout(layoutInicial)) throw new IllegalArgumentException("El layout inicial no és una permutació dels símbols");
+        double costInicial = problem.costSolucio(new String(layoutInicial));
+        control.reportSolution(layoutInicial, costInicial);
+        char[] layout = solve(simbols, cols, pairsFreq, control);
+        return problem.costSolucio(new String(layout)) < costInicial ? layout : layoutInicial.clone();
+    }
+
+    // Indica si la solució que retorna quan acaba sense que el control l'aturi és sempre l'òptima
+    default boolean esExacte() {
+        return false;
+    }
+
+    // Indica si, amb el mateix problema i sense que el control l'aturi, el resultat és sempre el
+    // mateix, i per tant es pot guardar a la memòria cau. Per defecte només ho són els exactes
+    default boolean esDeterminista() {
+        return esExacte();
+    }
+
+    // Descripció estable de l'algoritme i dels paràmetres que en poden canviar el resultat, que
+    // identifica els resultats a la memòria cau. Per defecte, el nom de la classe
+    default String getConfiguracio() {
+        return getClass().getSimpleName();
+    }
 }
@@ -0,0 +1,150 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controla l'execució d'un algoritme generador: límit de temps, nombre màxim de nodes,
+ * cancel·lació externa i notificació de les solucions que milloren la millor trobada.
+ * El límit de temps es compta des de la creació del control. Quan s'esgota qualsevol dels
+ * límits, els algoritmes que el suporten s'aturen i retornen la millor solució trobada.
+ * Un control pot tenir subcontrols, per a fases d'una cerca amb un límit propi: s'aturen quan
+ * ho fa el pare, i li comuniquen els nodes que compten i les solucions que milloren. Així, el
+ * control arrel coneix la millor solució de tota la cerca, i els solvers que en comparteixen un
+ * (per exemple, els d'un portfolio) la poden consultar per aprofitar la que han trobat els altres.
+ */
+public final class SearchControl {
+    /** Valor que indica que un límit no s'aplica*/
+    public static final long SENSE_LIMIT = Long.MAX_VALUE;
+
+    // Instant (en System.nanoTime) a partir del qual s'ha d'aturar la cerca
+    private final long deadline;
+    private final long maxNodes;
+    private final CancellationToken token;
+    private final SolutionListener listener;
+    private final SearchControl pare;
+
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean aturat = false;
+    // Indica si aquest control o algun dels seus subcontrols s'ha aturat
+    private volatile boolean truncat = false;
+
+    private char[] millorLayout = null;
+    private double millorCost = Double.POSITIVE_INFINITY;
+
+    // Control sense cap límit
+    public SearchControl() {
+        this(SENSE_LIMIT, SENSE_LIMIT, null, null);
+    }
+
+    // Control amb un límit de temps en mil·lisegons
+    public SearchControl(long limitMillis) {
+        this(limitMillis, SENSE_LIMIT, null, null);
+    }
+
+    // Control complet. Els límits poden ser SENSE_LIMIT, i el token i el listener poden ser null
+    public SearchControl(long limitMillis, long maxNodes, CancellationToken token, SolutionListener listener) {
+        this(limitMillis, maxNodes, token, listener, null);
+    }
+
+    private SearchControl(long limitMillis, long maxNodes, CancellationToken token, SolutionListener listener, SearchControl pare) {
+        if(limitMillis < 0 || maxNodes < 0) throw new IllegalArgumentException("Els límits no poden ser negatius");
+        long ara = System.nanoTime();
+        if(limitMillis == SENSE_LIMIT || limitMillis > (Long.MAX_VALUE - ara) / 1_000_000) this.deadline = SENSE_LIMIT;
+        else this.deadline = ara + limitMillis * 1_000_000;
+        this.maxNodes = maxNodes;
+        this.token = token;
+        this.listener = listener;
+        this.pare = pare;
+    }
+
+    // Retorna un subcontrol amb un límit de temps propi, que també s'atura quan s'atura aquest
+    public SearchControl subControl(long limitMillis) {
+        return subControl(limitMillis, null);
+    }
+
+    // Igual que l'anterior, però el subcontrol també s'atura quan es cancel·la el token donat, que pot ser null
+    public SearchControl subControl(long limitMillis, CancellationToken token) {
+        return new SearchControl(limitMillis, SENSE_LIMIT, token, null, this);
+    }
+
+    // Indica si la cerca s'ha d'aturar. Un cop retorna cert, sempre retorna cert
+    public boolean shouldStop() {
+        if(aturat) return true;
+        if((token != null && token.isCancelled())
+                || (pare != null && pare.shouldStop())
+                || nodes.get() >= maxNodes
+                || (deadline != SENSE_LIMIT && System.nanoTime() - deadline >= 0)) {
+            aturat = true;
+            for(SearchControl control = this; control != null && !control.truncat; control = control.pare) {
+                control.truncat = true;
+            }
+        }
+        return aturat;
+    }
+
+    // Compta un node explorat i retorna si la cerca pot continuar
+    public boolean countNode() {
+        return countNodes(1);
+    }
+
+    // Compta diversos nodes de cop, per als algoritmes que només consulten el control
+    // cada cert nombre de passos, i retorna si la cerca pot continuar
+    public boolean countNodes(long quantitat) {
+        nodes.addAndGet(quantitat);
+        if(pare != null) pare.countNodes(quantitat);
+        return !shouldStop();
+    }
+
+    // Proposa una solució. Si millora la millor trobada, la guarda i avisa el listener.
+    // Retorna si l'ha millorada
+    public synchronized boolean reportSolution(char[] layout, double cost) {
+        if(cost >= millorCost) return false;
+        millorCost = cost;
+        millorLayout = layout.clone();
+        if(listener != null) listener.onSolution(millorLayout.clone(), cost);
+        if(pare != null) pare.reportSolution(millorLayout, cost);
+        return true;
+    }
+
+    // Retorna una còpia de la millor disposició trobada, o null si encara no n'hi ha cap
+    public synchronized char[] getBestLayout() {
+        return millorLayout == null ? null : millorLayout.clone();
+    }
+
+    public synchronized double getBestCost() {
+        return millorCost;
+    }
+
+    // Cost de la millor solució de tota la cerca, que guarda el control arrel
+    public double getSharedBestCost() {
+        return arrel().getBestCost();
+    }
+
+    // Retorna una còpia de la millor disposició de tota la cerca, o null si encara no n'hi ha cap
+    public char[] getSharedBestLayout() {
+        return arrel().getBestLayout();
+    }
+
+    private SearchControl arrel() {
+        SearchControl control = this;
+        while(control.pare != null) control = control.pare;
+        return control;
+    }
+
+    public long getNodes() {
+        return nodes.get();
+    }
+
+    // Indica si la cerca s'ha aturat per algun límit o per cancel·lació, i per tant
+    // la millor solució pot no ser l'òptima
+    public boolean isStopped() {
+        return aturat;
+    }
+
+    // Indica si la cerca o alguna de les seves fases s'ha aturat abans d'acabar. Un subcontrol que
+    // s'atura pel seu propi límit no atura el pare, però el resultat pot dependre igualment de la
+    // velocitat de l'execució
+    public boolean isTruncated() {
+        return truncat;
+    }
+}
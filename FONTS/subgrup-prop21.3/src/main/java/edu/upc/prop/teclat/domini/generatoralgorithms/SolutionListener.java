@@ -0,0 +1,11 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms;
+
+/**
+ * Rep les solucions que milloren la millor trobada fins al moment durant una generació.
+ */
+@FunctionalInterface
+public interface SolutionListener {
+    // Es crida amb cada nova millor disposició i el seu cost, amb costos estrictament decreixents.
+    // Es pot cridar des de qualsevol fil de la cerca, així que ha de ser ràpid i no modificar el layout
+    void onSolution(char[] layout, double cost);
+}
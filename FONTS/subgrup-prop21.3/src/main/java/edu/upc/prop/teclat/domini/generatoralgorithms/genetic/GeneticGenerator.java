@@ -0,0 +1,229 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.genetic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.HillClimbing;
+import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems.QAPSwapDeltaFunction;
+import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems.QAP_HC;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Generador de layouts amb un algoritme memètic: una població de layouts evoluciona amb
+ * creuament d'ordre (OX), mutació per intercanvis de tecles i una cerca local curta amb
+ * l'operador d'intercanvi de {@link QAP_HC} sobre cada fill. Els fills de cada generació es
+ * generen i milloren en paral·lel al fork-join pool comú. Cada fill té la seva pròpia llavor,
+ * derivada seqüencialment de la del generador, de manera que el resultat no depèn del
+ * nombre de fils. Si es dona un layout inicial, forma part de la població inicial.
+ */
+public class GeneticGenerator implements GeneratorAlgorithm {
+    /** Mida de la població per defecte*/
+    public static final int POBLACIO = 20;
+    /** Nombre de generacions per defecte*/
+    public static final int GENERACIONS = 50;
+
+    // Probabilitat que un fill es muti
+    private static final double PROB_MUTACIO = 0.3;
+    // Fracció de les tecles que s'intercanvien en una mutació (com a mínim un intercanvi)
+    private static final double FRACCIO_MUTACIO = 0.1;
+    // Passades pel veïnatge d'intercanvis de la cerca local curta de cada fill
+    private static final int PASSADES_CERCA_LOCAL = 1;
+
+    private final int midaPoblacio;
+    private final int generacions;
+    private final long limitMillis;
+    private final Long llavor;
+
+    // Constructora per defecte
+    public GeneticGenerator() {
+        this(POBLACIO, GENERACIONS, SearchControl.SENSE_LIMIT, null);
+    }
+
+    // Constructora completa. limitMillis pot ser SearchControl.SENSE_LIMIT, i amb una llavor
+    // fixada el resultat és reproduïble (si el límit no és de temps)
+    public GeneticGenerator(int midaPoblacio, int generacions, long limitMillis, Long llavor) {
+        if(midaPoblacio < 2) throw new IllegalArgumentException("La població ha de tenir almenys dos individus");
+        if(generacions < 0 || limitMillis < 0) throw new IllegalArgumentException("Els límits no poden ser negatius");
+        this.midaPoblacio = midaPoblacio;
+        this.generacions = generacions;
+        this.limitMillis = limitMillis;
+        this.llavor = llavor;
+    }
+
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq) {
+        return solve(simbols, cols, pairsFreq, new SearchControl());
+    }
+
+    // Només és reproduïble amb una llavor fixada i sense límit de temps propi, ja que el temps
+    // que hi arriba depèn de la velocitat de l'execució
+    @Override
+    public boolean esDeterminista() {
+        return llavor != null && limitMillis == SearchControl.SENSE_LIMIT;
+    }
+
+    @Override
+    public String getConfiguracio() {
+        return getClass().getSimpleName() + "(" + midaPoblacio + "," + generacions + "," + limitMillis + "," + llavor + ")";
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
+        return solve(simbols, cols, pairsFreq, null, control);
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, char[] layoutInicial, SearchControl control) {
+        if(layoutInicial != null && !new QAProblem(cols, simbols, pairsFreq).esLayout(layoutInicial)) {
+            throw new IllegalArgumentException("El layout inicial no és una permutació dels símbols");
+        }
+        Random random = llavor == null ? new Random() : new Random(llavor);
+        long fi = limitMillis == SearchControl.SENSE_LIMIT ? Long.MAX_VALUE : System.nanoTime() + limitMillis * 1_000_000;
+        QAP_HC inicial = new QAP_HC(simbols.toCharArray(), cols, pairsFreq);
+
+        // Població inicial: layouts aleatoris, o el donat en el primer individu, millorats amb la cerca local
+        long[] llavors = llavors(random, midaPoblacio);
+        Individu[] inicials = new Individu[midaPoblacio];
+        IntStream.range(0, midaPoblacio).parallel().forEach(k -> {
+            QAP_HC estat;
+            if(k == 0 && layoutInicial != null) {
+                estat = new QAP_HC(layoutInicial.clone(), cols, pairsFreq);
+            } else {
+                estat = inicial.copy();
+                estat.FYshuffle(llavors[k]);
+            }
+            inicials[k] = milloraLocal(estat, control);
+        });
+        List<Individu> poblacio = new ArrayList<>(Arrays.asList(inicials));
+        poblacio.sort(Comparator.comparingDouble(ind -> ind.cost));
+        control.reportSolution(poblacio.get(0).getLayout(), poblacio.get(0).cost);
+
+        for(int g = 0; g < generacions; g++) {
+            if(control.shouldStop() || (fi != Long.MAX_VALUE && System.nanoTime() - fi >= 0)) break;
+
+            // Triem els pares seqüencialment, amb torneigs binaris, i una llavor per fill
+            int[] pares1 = new int[midaPoblacio];
+            int[] pares2 = new int[midaPoblacio];
+            for(int k = 0; k < midaPoblacio; k++) {
+                pares1[k] = torneig(random);
+                pares2[k] = torneig(random);
+            }
+            long[] llavorsFills = llavors(random, midaPoblacio);
+
+            // Generem i millorem els fills en paral·lel
+            Individu[] fills = new Individu[midaPoblacio];
+            IntStream.range(0, midaPoblacio).parallel().forEach(k -> {
+                Random rnd = new Random(llavorsFills[k]);
+                char[] layout = creuamentOX(poblacio.get(pares1[k]).estat.getLayout(), poblacio.get(pares2[k]).estat.getLayout(), rnd);
+                QAP_HC fill = new QAP_HC(layout, cols, pairsFreq);
+                if(rnd.nextDouble() < PROB_MUTACIO) muta(fill, rnd);
+                fills[k] = milloraLocal(fill, control);
+            });
+
+            // Reemplaçament (mu + lambda): ens quedem amb els millors sense repetir layouts
+            List<Individu> candidats = new ArrayList<>(poblacio);
+            candidats.addAll(Arrays.asList(fills));
+            candidats.sort(Comparator.comparingDouble(ind -> ind.cost));
+            poblacio.clear();
+            for(Individu candidat : candidats) {
+                if(poblacio.size() == midaPoblacio) break;
+                if(!repetit(poblacio, candidat)) poblacio.add(candidat);
+            }
+            // Si hi ha tants repetits que no omplim la població, la completem amb els millors
+            for(int k = 0; poblacio.size() < midaPoblacio; k++) poblacio.add(candidats.get(k));
+            control.reportSolution(poblacio.get(0).getLayout(), poblacio.get(0).cost);
+        }
+        return poblacio.get(0).getLayout();
+    }
+
+    // Individu de la població: un layout i el seu cost
+    private static class Individu {
+        private final QAP_HC estat;
+        private final double cost;
+
+        Individu(QAP_HC estat) {
+            this.estat = estat;
+            this.cost = estat.getCost();
+        }
+
+        char[] getLayout() {
+            return estat.getLayout().clone();
+        }
+    }
+
+    // Aplica la cerca local curta a un estat i en retorna l'individu
+    private static Individu milloraLocal(QAP_HC estat, SearchControl control) {
+        int maxComprovacions = PASSADES_CERCA_LOCAL * Math.max(1, estat.getNumKeys() - 1);
+        int[] comprovacions = {0};
+        HillClimbing hc = new HillClimbing(estat, new QAPSwapDeltaFunction(), HillClimbing.Strategy.FIRST_IMPROVEMENT,
+                () -> ++comprovacions[0] > maxComprovacions || !control.countNode());
+        return new Individu((QAP_HC) hc.solve());
+    }
+
+    // Torneig binari: retorna el millor de dos individus a l'atzar. La població està ordenada
+    // per cost, així que és el de menor índex
+    private int torneig(Random random) {
+        return Math.min(random.nextInt(midaPoblacio), random.nextInt(midaPoblacio));
+    }
+
+    private static long[] llavors(Random random, int quantitat) {
+        long[] llavors = new long[quantitat];
+        for(int k = 0; k < quantitat; k++) llavors[k] = random.nextLong();
+        return llavors;
+    }
+
+    // Creuament d'ordre (OX): el fill hereta un tram del primer pare a les mateixes posicions,
+    // i la resta de símbols en l'ordre en què apareixen al segon pare a partir del final del tram
+    private static char[] creuamentOX(char[] pare1, char[] pare2, Random random) {
+        int n = pare1.length;
+        char[] fill = new char[n];
+        if(n < 2) return pare1.clone();
+        int a = random.nextInt(n);
+        int b = random.nextInt(n);
+        if(a > b) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        BitSet usats = new BitSet();
+        for(int p = a; p <= b; p++) {
+            fill[p] = pare1[p];
+            usats.set(pare1[p]);
+        }
+        int p = (b + 1) % n;
+        for(int k = 0; k < n; k++) {
+            char c = pare2[(b + 1 + k) % n];
+            if(usats.get(c)) continue;
+            fill[p] = c;
+            p = (p + 1) % n;
+        }
+        return fill;
+    }
+
+    // Intercanvia parells de tecles a l'atzar
+    private static void muta(QAP_HC estat, Random random) {
+        int n = estat.getNumKeys();
+        if(n < 2) return;
+        int intercanvis = Math.max(1, (int) (FRACCIO_MUTACIO * n));
+        for(int k = 0; k < intercanvis; k++) {
+            int i = random.nextInt(n);
+            int j = random.nextInt(n - 1);
+            if(j >= i) j++;
+            estat.swap(i, j);
+        }
+    }
+
+    private static boolean repetit(List<Individu> poblacio, Individu candidat) {
+        for(Individu ind : poblacio) {
+            if(ind.cost == candidat.cost && Arrays.equals(ind.estat.getLayout(), candidat.estat.getLayout())) return true;
+        }
+        return false;
+    }
+}
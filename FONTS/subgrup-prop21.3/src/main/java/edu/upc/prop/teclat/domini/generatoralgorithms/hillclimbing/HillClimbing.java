@@ -1,11 +1,24 @@
 package edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing;
 
 import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
 
 public class HillClimbing {    
+    // How the next move is chosen when the search works with swap deltas
+    public enum Strategy {
+        BEST_IMPROVEMENT,   // Evaluate every swap and apply the best one
+        FIRST_IMPROVEMENT   // Apply the first improving swap found
+    }
+
+    // Minimum improvement accepted, so rounding errors can't make the search cycle
+    private static final double EPSILON = 1e-9;
+
     private Object solution;
     private SuccessorFunction sf;
     private HeuristicFunction hf;
+    private SwapDeltaFunction df;
+    private Strategy strategy;
+    private BooleanSupplier stopCondition = () -> false;
 
     public HillClimbing(Object problem, SuccessorFunction sf, HeuristicFunction hf) {
         this.solution = problem;
@@ -13,7 +26,28 @@ public class HillClimbing {
         this.hf = hf;
     }
 
+    // Hill Climbing over the swap neighbourhood that evaluates moves
+    // with O(n) deltas instead of materializing the successors
+    public HillClimbing(Object problem, SwapDeltaFunction df, Strategy strategy) {
+        this.solution = problem;
+        this.df = df;
+        this.strategy = strategy;
+    }
+
+    // Same as above, but the search stops as soon as stopCondition returns true,
+    // keeping the moves applied so far. It is checked before every move
+    public HillClimbing(Object problem, SwapDeltaFunction df, Strategy strategy, BooleanSupplier stopCondition) {
+        this(problem, df, strategy);
+        this.stopCondition = stopCondition;
+    }
+
     public Object solve() {
+        if (df != null) {
+            if (strategy == Strategy.FIRST_IMPROVEMENT) solveFirstImprovement();
+            else solveBestImprovement();
+            return solution;
+        }
+
         boolean solved = false;
         double minCost = hf.getHeuristicValue(solution);
 
@@ -33,4 +67,49 @@ public class HillClimbing {
         }
         return solution;
     }
+
+    // Applies the best swap of the neighbourhood until none improves the solution
+    private void solveBestImprovement() {
+        int n = df.getNumPositions(solution);
+        while (!stopCondition.getAsBoolean()) {
+            double bestDelta = -EPSILON;
+            int bestI = -1, bestJ = -1;
+            for (int i = 0; i < n; ++i) {
+                for (int j = i + 1; j < n; ++j) {
+                    double delta = df.getSwapDelta(solution, i, j);
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestI = i;
+                        bestJ = j;
+                    }
+                }
+            }
+            if (bestI < 0) return;
+            df.applySwap(solution, bestI, bestJ);
+        }
+    }
+
+    // Applies improving swaps as soon as they are found, scanning the neighbourhood
+    // cyclically from the last move until a whole pass finds no improvement.
+    // The stop condition is checked once per row of pairs
+    private void solveFirstImprovement() {
+        int n = df.getNumPositions(solution);
+        int numPairs = n * (n - 1) / 2;
+        int i = 0, j = 1;
+        int withoutImprovement = 0;
+        while (withoutImprovement < numPairs) {
+            if (df.getSwapDelta(solution, i, j) < -EPSILON) {
+                df.applySwap(solution, i, j);
+                withoutImprovement = 0;
+            }
+            else ++withoutImprovement;
+
+            // Next pair (i, j) with i < j
+            if (++j == n) {
+                if (++i == n - 1) i = 0;
+                j = i + 1;
+                if (stopCondition.getAsBoolean()) return;
+            }
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing;
+
+// Evaluates the cost change of swapping two positions of a state without building the successor
+public interface SwapDeltaFunction {
+    public int getNumPositions(Object n);
+
+    // Returns cost(n with positions i and j swapped) - cost(n)
+    public double getSwapDelta(Object n, int i, int j);
+
+    public void applySwap(Object n, int i, int j);
+}
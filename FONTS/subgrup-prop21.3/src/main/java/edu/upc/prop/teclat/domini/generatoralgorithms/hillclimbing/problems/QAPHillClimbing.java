@@ -1,49 +1,123 @@
 package edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 import edu.upc.prop.teclat.domini.PairsFrequency;
 import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
 import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.HillClimbing;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
 
 public class QAPHillClimbing implements GeneratorAlgorithm {
+    public static final int DEFAULT_RESTARTS = 10;
+
+    private final HillClimbing.Strategy strategy;
+    private final int numRestarts;
+    private final long[] seeds; //Fixed seeds of the restarts, or null to draw new ones on every solve
 
     //Constructor
     public QAPHillClimbing() {
+        this(HillClimbing.Strategy.BEST_IMPROVEMENT);
+    }
 
+    //Constructor choosing how each restart picks its next move
+    public QAPHillClimbing(HillClimbing.Strategy strategy) {
+        this(strategy, DEFAULT_RESTARTS);
+    }
+
+    //Constructor choosing the number of random restarts
+    public QAPHillClimbing(HillClimbing.Strategy strategy, int numRestarts) {
+        if (numRestarts < 1) throw new IllegalArgumentException("At least one restart is needed");
+        this.strategy = strategy;
+        this.numRestarts = numRestarts;
+        this.seeds = null;
+    }
+
+    //Constructor with one restart per given seed. The result only depends on the seeds,
+    //no matter how many threads run the restarts
+    public QAPHillClimbing(HillClimbing.Strategy strategy, long[] seeds) {
+        if (seeds.length < 1) throw new IllegalArgumentException("At least one restart is needed");
+        this.strategy = strategy;
+        this.numRestarts = seeds.length;
+        this.seeds = seeds.clone();
     }
 
     //Solves the instance defined at constructor
     //Input parameters define an instance of QAP
     public char[] solve(String symbols, int cols, PairsFrequency pairsFreq) {
+        return solve(symbols, cols, pairsFreq, new SearchControl());
+    }
+
+    //Only fixed seeds make the restarts, and hence the result, reproducible
+    @Override
+    public boolean esDeterminista() {
+        return seeds != null;
+    }
+
+    //Stable description of the strategy, restarts and fixed seeds, used to cache the results
+    @Override
+    public String getConfiguracio() {
+        return getClass().getSimpleName() + "(" + strategy + "," + numRestarts + "," + Arrays.toString(seeds) + ")";
+    }
+
+    //Warm start: a single climb from the given layout instead of the random restarts, so that
+    //re-optimizing after a small change only takes the few steps back to a local optimum
+    @Override
+    public char[] solve(String symbols, int cols, PairsFrequency pairsFreq, char[] initialLayout, SearchControl control) {
+        if (initialLayout == null) return solve(symbols, cols, pairsFreq, control);
+        if (!new QAProblem(cols, symbols, pairsFreq).esLayout(initialLayout))
+            throw new IllegalArgumentException("The initial layout is not a permutation of the symbols");
+
+        HillClimbing hc_solver = new HillClimbing(new QAP_HC(initialLayout.clone(), cols, pairsFreq),
+                new QAPSwapDeltaFunction(), strategy, () -> !control.countNode());
+        QAP_HC result = (QAP_HC)hc_solver.solve();
+        control.reportSolution(result.getLayout(), result.getCost());
+        return result.getLayout();
+    }
+
+    //Same as above, but every climbing step counts as a node of the control and the restarts
+    //stop as soon as it runs out. Each restart reports its local optimum to the control
+    @Override
+    public char[] solve(String symbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
         // Generate seeds so as to make multiple executions 
         // of the same problem with different initial states
-        long[] seeds = new long[10];
-        Random rnd = new Random();        
-        for (int i = 0; i < seeds.length; ++i)
-            seeds[i] = rnd.nextLong();
-
-        QAP_HC solution = null; //We haven't found any solution yet
-        double minCost = Double.MAX_VALUE; //Worst cost possible
+        long[] seeds = this.seeds;
+        if (seeds == null) {
+            seeds = new long[numRestarts];
+            Random rnd = new Random();        
+            for (int i = 0; i < seeds.length; ++i)
+                seeds[i] = rnd.nextLong();
+        }
 
-        for (int i = 0; i < seeds.length; ++i) {
-            QAP_HC candidate = new QAP_HC(symbols.toCharArray(), cols, pairsFreq);
+        //Every restart works on its own copy of the state, so they run
+        //in parallel on the common fork-join pool
+        final long[] restartSeeds = seeds;
+        final QAP_HC initial = new QAP_HC(symbols.toCharArray(), cols, pairsFreq);
+        final QAP_HC[] candidates = new QAP_HC[seeds.length];
+        final double[] costs = new double[seeds.length];
+        IntStream.range(0, seeds.length).parallel().forEach(i -> {
+            QAP_HC candidate = initial.copy();
 
             //Generate initial solution applying Fisher-Yates shuffle
-            candidate.FYshuffle(seeds[i]);
+            candidate.FYshuffle(restartSeeds[i]);
 
-            //Execute Hill Climbing in order to find a better solution
-            HillClimbing hc_solver = new HillClimbing(candidate, new QAPSuccessorFunction(), new QAPHeuristicFunction());
-            candidate = (QAP_HC)hc_solver.solve();
-            double cost = candidate.getCost();
+            //Execute Hill Climbing in order to find a better solution, evaluating swaps with deltas
+            HillClimbing hc_solver = new HillClimbing(candidate, new QAPSwapDeltaFunction(), strategy,
+                    () -> !control.countNode());
+            candidates[i] = (QAP_HC)hc_solver.solve();
+            costs[i] = candidates[i].getCost();
+            control.reportSolution(candidates[i].getLayout(), costs[i]);
+        });
 
-            if (solution == null || minCost > cost) {
-                solution = candidate;
-                minCost = cost;
-            }
+        //Keep the best solution found. Ties go to the first seed, so the result is deterministic
+        int best = 0;
+        for (int i = 1; i < candidates.length; ++i) {
+            if (costs[i] < costs[best]) best = i;
         }
 
         //Returns the layout of the best solution found
-        return solution.getLayout();
+        return candidates[best].getLayout();
     }
 }
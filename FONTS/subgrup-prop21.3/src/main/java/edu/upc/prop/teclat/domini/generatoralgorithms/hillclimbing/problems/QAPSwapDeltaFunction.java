@@ -0,0 +1,22 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.SwapDeltaFunction;
+
+public class QAPSwapDeltaFunction implements SwapDeltaFunction {
+
+    public QAPSwapDeltaFunction() {
+
+    }
+
+    public int getNumPositions(Object obj) {
+        return ((QAP_HC)obj).getNumKeys();
+    }
+
+    public double getSwapDelta(Object obj, int i, int j) {
+        return ((QAP_HC)obj).swapDelta(i, j);
+    }
+
+    public void applySwap(Object obj, int i, int j) {
+        ((QAP_HC)obj).swap(i, j);
+    }
+}
@@ -2,34 +2,47 @@ package edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems;
 
 import java.util.Arrays;
 import java.util.Random;
-import java.lang.Math;
 import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.DistanceMatrix;
 
 /*
  * Representación del estado
+ *
+ * The problem data (columns, pair frequencies and distances) is immutable and shared
+ * between copies, while each state owns its layout. Different states can therefore be
+ * climbed concurrently from different threads.
  */
 public class QAP_HC {
-    static private int cols;
-    static private PairsFrequency pairFreq; //Frequency of each pair of symbols 
-    private char[] layout;  //Layout of symbols assigned to keys that represents the solution
+    private final int cols;
+    private final PairsFrequency pairFreq; //Frequency of each pair of symbols 
+    private final DistanceMatrix distances; //Shared distances between every pair of keys
+    private final char[] layout;  //Layout of symbols assigned to keys that represents the solution
+    private final int[] symbolIdx; //Dense index in pairFreq of the symbol at each key (-1 if it has no pairs)
 
 
     // Constructor
     public QAP_HC(char[] symbols, int cols, PairsFrequency pairFreq){
-        QAP_HC.cols        = cols;
-        QAP_HC.pairFreq    = pairFreq;
+        this.cols       = cols;
+        this.pairFreq   = pairFreq;
+        this.distances  = DistanceMatrix.of(symbols.length, cols);
         this.layout     = symbols;
+        this.symbolIdx  = new int[symbols.length];
+        for (int i = 0; i < symbols.length; ++i)
+            symbolIdx[i] = pairFreq.getIndex(symbols[i]);
     }
 
-    // Copy function by value
-    public QAP_HC copy() { 
-        char[] symbols = Arrays.copyOf(layout, layout.length);   
-        return new QAP_HC(symbols, cols, pairFreq);
+    // Copy constructor that shares the immutable problem data
+    private QAP_HC(QAP_HC other) {
+        this.cols       = other.cols;
+        this.pairFreq   = other.pairFreq;
+        this.distances  = other.distances;
+        this.layout     = Arrays.copyOf(other.layout, other.layout.length);
+        this.symbolIdx  = Arrays.copyOf(other.symbolIdx, other.symbolIdx.length);
     }
 
-    // Returns Euclidean distance between two points (2D)
-    private double distance(int x1, int y1, int x2, int y2) {
-        return Math.sqrt(Math.pow(x2-x1, 2) + Math.pow(y2-y1, 2));
+    // Copy function by value
+    public QAP_HC copy() { 
+        return new QAP_HC(this);
     }
 
 
@@ -42,9 +55,7 @@ public class QAP_HC {
         Random random = new Random(seed);
         for (int i = layout.length -1; i >= 0; --i) {
             int j = random.nextInt(i+1);
-            char c = layout[i];
-            layout[i] = layout[j];
-            layout[j] = c;
+            swap(i, j);
         }
     }
 
@@ -58,6 +69,32 @@ public class QAP_HC {
         char c = layout[i];
         layout[i] = layout[j];
         layout[j] = c;
+
+        int s = symbolIdx[i];
+        symbolIdx[i] = symbolIdx[j];
+        symbolIdx[j] = s;
+    }
+
+    // Returns the cost change of swapping the symbols of positions i and j, in O(n)
+    // and without modifying the layout. Only the pairs involving i or j change: the
+    // symbol a = layout[i] moves to j and b = layout[j] moves to i, so
+    // delta = sum over k != i,j of (f(b,k) - f(a,k)) * (d(i,k) - d(j,k))
+    public double swapDelta(int i, int j) {
+        int a = symbolIdx[i];
+        int b = symbolIdx[j];
+        if (a < 0 && b < 0) return 0;
+
+        double delta = 0;
+        for (int k = 0; k < layout.length; ++k) {
+            if (k == i || k == j) continue;
+            int c = symbolIdx[k];
+            if (c < 0) continue;
+            int fa = a < 0 ? 0 : pairFreq.get(a, c);
+            int fb = b < 0 ? 0 : pairFreq.get(b, c);
+            if (fa == fb) continue;
+            delta += (fb - fa) * (distances.get(i, k) - distances.get(j, k));
+        }
+        return delta;
     }
 
 
@@ -69,14 +106,12 @@ public class QAP_HC {
     public double getCost() {
         double cost = 0;
         for (int i = 0; i < layout.length; ++i) {
-            int row_i = i / cols;
-            int col_i = i % cols;
+            if (symbolIdx[i] < 0) continue;
             for (int j = i + 1; j < layout.length; ++j) {
-                int row_j = j / cols;
-                int col_j = j % cols;
+                if (symbolIdx[j] < 0) continue;
 
                 //Add the frequency of the char pair multiplied by their distance on the layout
-                cost += pairFreq.get(layout[i], layout[j]) * distance(row_i, col_i, row_j, col_j);;
+                cost += pairFreq.get(symbolIdx[i], symbolIdx[j]) * distances.get(i, j);
             }
         }
         return cost;
@@ -102,5 +137,15 @@ public class QAP_HC {
     public int getNumKeys() {
         return layout.length;
     }
-}
 
+    //Returns the frequency of the pair formed by the symbols at keys i and j
+    public int getFlow(int i, int j) {
+        if (symbolIdx[i] < 0 || symbolIdx[j] < 0) return 0;
+        return pairFreq.get(symbolIdx[i], symbolIdx[j]);
+    }
+
+    //Returns the distance between keys i and j
+    public double getDistance(int i, int j) {
+        return distances.get(i, j);
+    }
+}
@@ -0,0 +1,256 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.lns;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.GreedyGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.BranchAndBoundGenerator;
+
+/**
+ * Generador de layouts amb una Large Neighbourhood Search. Partint del layout donat o, si no n'hi
+ * ha, de la solució del greedy, a cada ronda s'alliberen diverses finestres de k tecles (una fila,
+ * un bloc de tecles properes o un subconjunt de les que més contribueixen al cost) i cadascuna es
+ * torna a assignar de manera òptima amb el Branch And Bound, deixant fixada la resta del teclat.
+ * Les finestres d'una ronda es resolen en paral·lel sobre la mateixa solució; s'aplica la que més
+ * millora i, després, les altres que no s'hi solapen mentre el cost continuï baixant.
+ * Per resoldre una finestra es reordenen les posicions del problema perquè les fixades quedin al
+ * principi, i el Branch And Bound completa la solució a partir d'aquest prefix.
+ * Si un altre solver que comparteix el control troba una solució millor, la cerca hi continua.
+ */
+public class LargeNeighbourhoodSearchGenerator implements GeneratorAlgorithm {
+    /** Nombre de tecles que s'alliberen a cada finestra per defecte*/
+    public static final int MIDA_FINESTRA = 8;
+    /** Mínim de rondes per defecte*/
+    public static final int MIN_RONDES = 20;
+    /** Rondes per defecte per cada símbol de l'alfabet*/
+    public static final int RONDES_PER_SIMBOL = 2;
+
+    // Finestres que es resolen en paral·lel a cada ronda
+    private static final int VEINATGES_PER_RONDA = 4;
+    // Les finestres de pitjors tecles es trien a l'atzar entre les FACTOR_PITJORS*k que més contribueixen
+    private static final int FACTOR_PITJORS = 2;
+    // Millora mínima per acceptar una finestra
+    private static final double EPSILON = 1e-9;
+
+    // Tipus de finestra, que s'alternen al llarg de les rondes
+    private enum Veinatge { FILA, BLOC, PITJORS }
+
+    private final int midaFinestra;
+    private final int rondes;
+    private final long limitMillis;
+    private final Long llavor;
+
+    // Constructora per defecte, amb un pressupost de rondes segons la mida de l'alfabet
+    public LargeNeighbourhoodSearchGenerator() {
+        this(MIDA_FINESTRA, 0, SearchControl.SENSE_LIMIT, null);
+    }
+
+    // Constructora completa. rondes = 0 vol dir el valor per defecte segons la mida de l'alfabet,
+    // limitMillis pot ser SearchControl.SENSE_LIMIT i llavor pot ser null. Amb una llavor fixada
+    // el resultat és reproduïble (si el límit no és de temps)
+    public LargeNeighbourhoodSearchGenerator(int midaFinestra, int rondes, long limitMillis, Long llavor) {
+        if(midaFinestra < 2) throw new IllegalArgumentException("La finestra ha de tenir com a mínim dues tecles");
+        if(rondes < 0 || limitMillis < 0) {
+            throw new IllegalArgumentException("Els límits de la Large Neighbourhood Search no poden ser negatius");
+        }
+        this.midaFinestra = midaFinestra;
+        this.rondes = rondes;
+        this.limitMillis = limitMillis;
+        this.llavor = llavor;
+    }
+
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq) {
+        return solve(simbols, cols, pairsFreq, new SearchControl());
+    }
+
+    // Només és reproduïble amb una llavor fixada i sense límit de temps propi, ja que el temps
+    // que hi arriba depèn de la velocitat de l'execució
+    @Override
+    public boolean esDeterminista() {
+        return llavor != null && limitMillis == SearchControl.SENSE_LIMIT;
+    }
+
+    @Override
+    public String getConfiguracio() {
+        return getClass().getSimpleName() + "(" + midaFinestra + "," + rondes + "," + limitMillis + "," + llavor + ")";
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
+        return solve(simbols, cols, pairsFreq, null, control);
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, char[] layoutInicial, SearchControl control) {
+        SearchControl cerca = control.subControl(limitMillis);
+        QAProblem problem = new QAProblem(cols, simbols, pairsFreq);
+        int n = problem.getNumSimbols();
+        if(layoutInicial != null && !problem.esLayout(layoutInicial)) {
+            throw new IllegalArgumentException("El layout inicial no és una permutació dels símbols");
+        }
+        char[] inicial = layoutInicial != null ? layoutInicial : new GreedyGenerator().solve(simbols, cols, pairsFreq);
+        int[] solucio = problem.toIndexos(inicial);
+        double cost = problem.costSolucio(solucio, n);
+        cerca.reportSolution(problem.toLayout(solucio), cost);
+
+        // Si la finestra és tot el teclat, n'hi ha prou amb un sol Branch And Bound
+        int k = Math.min(midaFinestra, n);
+        if(k == n) {
+            solucio = new BranchAndBoundGenerator(false).completa(problem, solucio, 0, cerca);
+            return problem.toLayout(solucio);
+        }
+
+        Random random = llavor == null ? new Random() : new Random(llavor);
+        int totalRondes = rondes > 0 ? rondes : Math.max(MIN_RONDES, RONDES_PER_SIMBOL * n);
+        int tipus = 0;
+        for(int ronda = 0; ronda < totalRondes && !cerca.shouldStop(); ronda++) {
+            if(cerca.getSharedBestCost() < cost - EPSILON) {
+                int[] compartida = problem.toIndexos(cerca.getSharedBestLayout());
+                double costCompartida = problem.costSolucio(compartida, n);
+                if(costCompartida < cost) {
+                    solucio = compartida;
+                    cost = costCompartida;
+                }
+            }
+
+            int[][] finestres = new int[VEINATGES_PER_RONDA][];
+            for(int v = 0; v < finestres.length; v++) {
+                Veinatge veinatge = Veinatge.values()[tipus++ % Veinatge.values().length];
+                finestres[v] = triaFinestra(veinatge, problem, solucio, k, random);
+            }
+
+            // Cada finestra es resol sobre la mateixa solució i no la modifica
+            final int[] base = solucio;
+            int[][] resultats = IntStream.range(0, finestres.length).parallel()
+                    .mapToObj(v -> resolFinestra(problem, base, finestres[v], cerca))
+                    .toArray(int[][]::new);
+
+            double[] costos = new double[resultats.length];
+            Integer[] ordre = new Integer[resultats.length];
+            for(int v = 0; v < resultats.length; v++) {
+                costos[v] = problem.costSolucio(resultats[v], n);
+                ordre[v] = v;
+            }
+            Arrays.sort(ordre, (a, b) -> Double.compare(costos[a], costos[b]));
+
+            // Apliquem les finestres que milloren de la millor a la pitjor, sempre que no
+            // es solapin amb les ja aplicades i el cost total continuï baixant
+            boolean[] tocades = new boolean[n];
+            int[] nova = solucio.clone();
+            double costNova = cost;
+            for(int v : ordre) {
+                if(costos[v] >= cost - EPSILON) break;
+                if(solapa(finestres[v], tocades)) continue;
+                int[] provada = nova.clone();
+                for(int p : finestres[v]) provada[p] = resultats[v][p];
+                double costProvada = problem.costSolucio(provada, n);
+                if(costProvada >= costNova - EPSILON) continue;
+                nova = provada;
+                costNova = costProvada;
+                for(int p : finestres[v]) tocades[p] = true;
+            }
+            if(costNova < cost) {
+                solucio = nova;
+                cost = costNova;
+                cerca.reportSolution(problem.toLayout(solucio), cost);
+            }
+        }
+        return problem.toLayout(solucio);
+    }
+
+    // Torna a assignar de manera òptima els símbols de les tecles de la finestra deixant la resta
+    // fixada, i retorna la nova solució completa en l'ordre de la graella
+    private static int[] resolFinestra(QAProblem problem, int[] solucio, int[] finestra, SearchControl control) {
+        int n = solucio.length;
+        int k = finestra.length;
+        boolean[] lliure = new boolean[n];
+        for(int p : finestra) lliure[p] = true;
+
+        // Les posicions fixades van al principi, en l'ordre de la graella, i les de la finestra al final
+        int[] ordre = new int[n];
+        int i = 0;
+        for(int p = 0; p < n; p++) {
+            if(!lliure[p]) ordre[i++] = p;
+        }
+        for(int p : finestra) ordre[i++] = p;
+
+        QAProblem reordenat = problem.reordenat(ordre);
+        int[] inicial = new int[n];
+        for(int p = 0; p < n; p++) inicial[p] = solucio[ordre[p]];
+        int[] resultat = new BranchAndBoundGenerator(false).completa(reordenat, inicial, n - k, control);
+
+        int[] nova = new int[n];
+        for(int p = 0; p < n; p++) nova[ordre[p]] = resultat[p];
+        return nova;
+    }
+
+    private static int[] triaFinestra(Veinatge veinatge, QAProblem problem, int[] solucio, int k, Random random) {
+        switch(veinatge) {
+            case FILA: return finestraFila(problem, k, random);
+            case BLOC: return finestraBloc(problem, k, random);
+            default: return finestraPitjors(problem, solucio, k, random);
+        }
+    }
+
+    // k tecles consecutives de la graella a partir del principi d'una fila a l'atzar. Si la
+    // finestra és més gran que la fila, continua per la següent
+    private static int[] finestraFila(QAProblem problem, int k, Random random) {
+        int n = problem.getNumSimbols();
+        int cols = problem.getColumnes();
+        int files = (n + cols - 1) / cols;
+        int inici = random.nextInt(files) * cols;
+        int[] finestra = new int[k];
+        for(int i = 0; i < k; i++) finestra[i] = (inici + i) % n;
+        return finestra;
+    }
+
+    // Les k tecles més properes a una tecla triada a l'atzar (inclosa ella mateixa)
+    private static int[] finestraBloc(QAProblem problem, int k, Random random) {
+        int n = problem.getNumSimbols();
+        int centre = random.nextInt(n);
+        Integer[] tecles = new Integer[n];
+        for(int p = 0; p < n; p++) tecles[p] = p;
+        Arrays.sort(tecles, (a, b) -> Double.compare(problem.dist(centre, a), problem.dist(centre, b)));
+        int[] finestra = new int[k];
+        for(int i = 0; i < k; i++) finestra[i] = tecles[i];
+        return finestra;
+    }
+
+    // k tecles a l'atzar d'entre les que més contribueixen al cost de la solució
+    private static int[] finestraPitjors(QAProblem problem, int[] solucio, int k, Random random) {
+        int n = solucio.length;
+        double[] contribucio = new double[n];
+        for(int p = 0; p < n; p++) {
+            for(int q = 0; q < n; q++) {
+                if(q != p) contribucio[p] += problem.dist(p, q) * problem.flux(solucio[p], solucio[q]);
+            }
+        }
+        Integer[] tecles = new Integer[n];
+        for(int p = 0; p < n; p++) tecles[p] = p;
+        Arrays.sort(tecles, (a, b) -> Double.compare(contribucio[b], contribucio[a]));
+
+        // Barregem les candidates (Fisher-Yates parcial) i ens quedem les k primeres
+        int candidates = Math.min(n, FACTOR_PITJORS * k);
+        int[] finestra = new int[k];
+        for(int i = 0; i < k; i++) {
+            int j = i + random.nextInt(candidates - i);
+            Integer t = tecles[i];
+            tecles[i] = tecles[j];
+            tecles[j] = t;
+            finestra[i] = tecles[i];
+        }
+        return finestra;
+    }
+
+    private static boolean solapa(int[] finestra, boolean[] tocades) {
+        for(int p : finestra) {
+            if(tocades[p]) return true;
+        }
+        return false;
+    }
+}
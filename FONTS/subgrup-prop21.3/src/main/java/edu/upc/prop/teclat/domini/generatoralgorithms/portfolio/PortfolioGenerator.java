@@ -0,0 +1,103 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.portfolio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.CancellationToken;
+import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+
+/**
+ * Generador que executa diversos algoritmes alhora, cadascun en un fil propi, amb un únic límit
+ * de temps, i retorna la millor disposició que ha trobat qualsevol d'ells.
+ * Cada algoritme té un subcontrol del mateix control, que rep totes les solucions que milloren;
+ * els que ho suporten (el Branch And Bound i la Large Neighbourhood Search) hi consulten
+ * periòdicament la millor solució dels altres per podar o continuar-hi la cerca.
+ * La cursa s'acaba quan s'esgota el temps, quan han acabat tots els algoritmes o quan n'acaba un
+ * d'exacte sense haver-se aturat, ja que llavors la seva solució és l'òptima.
+ * Si es dona un layout inicial, tots els algoritmes en parteixen.
+ */
+public class PortfolioGenerator implements GeneratorAlgorithm {
+    /** Temps màxim per defecte de la cursa, en mil·lisegons*/
+    public static final long LIMIT_MILLIS = 10_000;
+
+    private final List<GeneratorAlgorithm> algoritmes;
+    private final long limitMillis;
+
+    // Portfolio amb els algoritmes donats i el temps màxim per defecte
+    public PortfolioGenerator(List<GeneratorAlgorithm> algoritmes) {
+        this(algoritmes, LIMIT_MILLIS);
+    }
+
+    // Constructora completa. limitMillis pot ser SearchControl.SENSE_LIMIT, i llavors la cursa
+    // dura fins que acaben tots els algoritmes o el control que es rep a solve s'atura
+    public PortfolioGenerator(List<GeneratorAlgorithm> algoritmes, long limitMillis) {
+        if(algoritmes.isEmpty()) throw new IllegalArgumentException("El portfolio necessita com a mínim un algoritme");
+        if(limitMillis < 0) throw new IllegalArgumentException("El temps màxim del portfolio no pot ser negatiu");
+        this.algoritmes = new ArrayList<>(algoritmes);
+        this.limitMillis = limitMillis;
+    }
+
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq) {
+        return solve(simbols, cols, pairsFreq, new SearchControl());
+    }
+
+    @Override
+    public String getConfiguracio() {
+        StringBuilder configuracio = new StringBuilder(getClass().getSimpleName()).append("(").append(limitMillis);
+        for(GeneratorAlgorithm algoritme : algoritmes) configuracio.append(",").append(algoritme.getConfiguracio());
+        return configuracio.append(")").toString();
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
+        return solve(simbols, cols, pairsFreq, null, control);
+    }
+
+    // Executa tots els algoritmes fins que s'acaba la cursa. Si algun algoritme falla, els altres
+    // continuen, i l'error només es propaga si cap d'ells no ha trobat cap solució
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, char[] layoutInicial, SearchControl control) {
+        SearchControl cursa = control.subControl(limitMillis);
+        CancellationToken fi = new CancellationToken();
+        ExecutorService fils = Executors.newFixedThreadPool(algoritmes.size(), tasca -> {
+            Thread fil = new Thread(tasca, "portfolio");
+            fil.setDaemon(true);
+            return fil;
+        });
+
+        RuntimeException error = null;
+        try {
+            List<Future<?>> tasques = new ArrayList<>();
+            for(GeneratorAlgorithm algoritme : algoritmes) {
+                SearchControl propi = cursa.subControl(SearchControl.SENSE_LIMIT, fi);
+                tasques.add(fils.submit(() -> {
+                    algoritme.solve(simbols, cols, pairsFreq, layoutInicial, propi);
+                    if(algoritme.esExacte() && !propi.isStopped()) fi.cancel();
+                }));
+            }
+            for(Future<?> tasca : tasques) {
+                try {
+                    tasca.get();
+                } catch (ExecutionException e) {
+                    if(error == null) error = new RuntimeException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            fi.cancel();
+            Thread.currentThread().interrupt();
+        } finally {
+            fils.shutdownNow();
+        }
+
+        char[] millor = cursa.getBestLayout();
+        if(millor == null && error != null) throw error;
+        // Si s'ha interromput abans que cap algoritme notifiqués res, retornem els símbols en ordre
+        return millor != null ? millor : simbols.toCharArray();
+    }
+}
@@ -0,0 +1,71 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Matriu immutable de distàncies euclidianes entre totes les posicions d'un teclat
+ * de {@code numTecles} tecles distribuïdes per files de {@code columnes} columnes.
+ * Les matrius es calculen un sol cop i es comparteixen a través d'una memòria cau acotada.
+ */
+public final class DistanceMatrix {
+    /** Nombre màxim de geometries de teclat que es guarden a la memòria cau*/
+    private static final int MAX_ENTRADES = 32;
+
+    /** Memòria cau de matrius indexada per (numTecles, columnes), amb política LRU*/
+    private static final Map<Long, DistanceMatrix> cache = new LinkedHashMap<Long, DistanceMatrix>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, DistanceMatrix> eldest) {
+            return size() > MAX_ENTRADES;
+        }
+    };
+
+    private final int numTecles;
+    private final int columnes;
+    /** Distàncies emmagatzemades per files: la distància entre i i j és a {@code i*numTecles + j}*/
+    private final double[] distancies;
+
+    private DistanceMatrix(int numTecles, int columnes) {
+        this.numTecles = numTecles;
+        this.columnes = columnes;
+        this.distancies = new double[numTecles * numTecles];
+        for(int i=0; i < numTecles; i++) {
+            int fila_i = i / columnes;
+            int columna_i = i % columnes;
+            for(int j=i+1; j < numTecles; j++) {
+                int df = fila_i - j / columnes;
+                int dc = columna_i - j % columnes;
+                double d = Math.sqrt(df*df + dc*dc);
+                distancies[i*numTecles + j] = d;
+                distancies[j*numTecles + i] = d;
+            }
+        }
+    }
+
+    // Retorna la matriu de distàncies d'un teclat de numTecles tecles i columnes columnes,
+    // calculant-la només si no es troba a la memòria cau
+    public static DistanceMatrix of(int numTecles, int columnes) {
+        Long clau = ((long) numTecles << 32) | columnes;
+        synchronized (cache) {
+            DistanceMatrix matriu = cache.get(clau);
+            if(matriu == null) {
+                matriu = new DistanceMatrix(numTecles, columnes);
+                cache.put(clau, matriu);
+            }
+            return matriu;
+        }
+    }
+
+    // Retorna la distància euclidiana entre les posicions i i j del teclat
+    public double get(int i, int j) {
+        return distancies[i*numTecles + j];
+    }
+
+    public int getNumTecles() {
+        return numTecles;
+    }
+
+    public int getColumnes() {
+        return columnes;
+    }
+}
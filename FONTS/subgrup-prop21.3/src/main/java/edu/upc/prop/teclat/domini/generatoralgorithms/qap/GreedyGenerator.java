@@ -1,45 +1,58 @@
 package edu.upc.prop.teclat.domini.generatoralgorithms.qap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
 
 import edu.upc.prop.teclat.domini.PairsFrequency;
 import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
 
 /**
- * Solver greedy per a un problema QAP
+ * Solver greedy per a un problema QAP. Omple les posicions en ordre i a cada pas hi col·loca
+ * el símbol que menys fa créixer el cost amb els ja col·locats. Aquest increment es manté
+ * per a cada símbol i posició lliure i s'actualitza en col·locar cada símbol, de manera que
+ * cada tria és O(n) i cada actualització O(n^2).
  * @author Pau Marín Roig (pau.marin.roig@estudiantat.upc.edu)
  */
 public class GreedyGenerator implements GeneratorAlgorithm{
 
-    // Resol el problema QAP amb un algorisme greedy
+    // Resol el problema QAP amb un algorisme greedy. Els empats es resolen a favor
+    // del símbol que apareix abans a simbols
     @Override
     public char[] solve(String simbols, int cols, PairsFrequency pairsFreq) {
         QAProblem problem = new QAProblem(cols, simbols, pairsFreq);
-        String solucio = "";
+        int n = problem.getNumSimbols();
+        char[] solucio = new char[n];
+        boolean[] usats = new boolean[n];
 
-        // Posem tots els símbols en un set
-        Set<Character> simbolsSet = new HashSet<Character>();
-        for (int i=0; i<simbols.length(); ++i) {
-            simbolsSet.add(simbols.charAt(i));
-        }
+        // atraccio[s*n + pos]: increment del cost en col·locar el símbol s a la posició pos,
+        // donats els símbols ja col·locats (només es manté per a les posicions lliures)
+        double[] atraccio = new double[n * n];
 
         // Anem afegint el símbol que minimitza el cost
-        while (!simbolsSet.isEmpty()) {
-            Iterator<Character> it = simbolsSet.iterator();
-            char proposta = it.next();
-            double cost = problem.costSolucio(solucio + proposta);
-            while (it.hasNext()) {
-                char c = it.next();
-                double cost2 = problem.costSolucio(solucio + c);
-                if (cost2 < cost) {
-                    proposta = c;
-                    cost = cost2;
+        for (int m = 0; m < n; ++m) {
+            int proposta = -1;
+            for (int s = 0; s < n; ++s) {
+                if (usats[s]) continue;
+                if (proposta < 0 || atraccio[s*n + m] < atraccio[proposta*n + m]) {
+                    proposta = s;
+                }
+            }
+            usats[proposta] = true;
+            solucio[m] = simbols.charAt(proposta);
+
+            // Afegim la interacció amb el nou símbol a l'increment de la resta a les posicions lliures
+            for (int s = 0; s < n; ++s) {
+                if (usats[s]) continue;
+                int f = problem.flux(s, proposta);
+                if (f == 0) continue;
+                for (int pos = m + 1; pos < n; ++pos) {
+                    atraccio[s*n + pos] += f * problem.dist(m, pos);
                 }
             }
-            solucio += proposta;
-            simbolsSet.remove(proposta);
         }
-        return solucio.toCharArray();
+        return solucio;
+    }
+
+    // No té cap part aleatòria
+    @Override
+    public boolean esDeterminista() {
+        return true;
     }
 }
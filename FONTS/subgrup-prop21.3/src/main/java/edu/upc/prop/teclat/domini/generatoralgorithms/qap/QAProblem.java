@@ -6,17 +6,62 @@ import edu.upc.prop.teclat.domini.PairsFrequency;
  * Representa un problema de Quadratic Assignment.
  * Aquest tipus de problema pot ser resolt per diversos solvers, com el
  * GreedyGenerator i el BranchAndBoundGenerator.
+ * Les solucions amb índexs (int[]) assignen un símbol a cada posició del problema, que normalment
+ * és la tecla del mateix número. Un problema reordenat numera les tecles en un altre ordre, per
+ * exemple per deixar al final les que es volen tornar a assignar; els layouts de caràcters sempre
+ * segueixen l'ordre de la graella.
  * @author Pau Marín Roig (pau.marin.roig@estudiantat.upc.edu)
  */
 public class QAProblem {
     private final PairsFrequency freq;
     private final int columnes;
     private final String simbols;
+    private final DistanceMatrix distancies;
+    // Freqüències entre símbols indexades per la seva posició dins de simbols (matriu n x n per files)
+    private final int[] flux;
+    private final int n;
+    // ordre[p]: tecla de la graella que correspon a la posició p del problema, o null si coincideixen
+    private final int[] ordre;
+    // Distàncies entre les posicions del problema reordenat (matriu n x n per files)
+    private final double[] distOrdenades;
 
     public QAProblem(int columnes, String simbols, PairsFrequency freq) {
         this.columnes = columnes;
         this.simbols = simbols;
         this.freq = freq;
+        this.distancies = DistanceMatrix.of(simbols.length(), columnes);
+        this.flux = freq.getMatriu(simbols);
+        this.n = simbols.length();
+        this.ordre = null;
+        this.distOrdenades = null;
+    }
+
+    private QAProblem(QAProblem original, int[] ordre) {
+        this.columnes = original.columnes;
+        this.simbols = original.simbols;
+        this.freq = original.freq;
+        this.distancies = original.distancies;
+        this.flux = original.flux;
+        this.n = original.n;
+        this.ordre = ordre.clone();
+        this.distOrdenades = new double[n * n];
+        for(int i=0; i < n; i++) {
+            for(int j=0; j < n; j++) {
+                distOrdenades[i*n + j] = distancies.get(ordre[i], ordre[j]);
+            }
+        }
+    }
+
+    // Retorna el mateix problema amb les posicions reordenades: la posició p del nou problema
+    // és la tecla ordre[p] de la graella
+    public QAProblem reordenat(int[] ordre) {
+        boolean[] vista = new boolean[n];
+        if(ordre.length != n) throw new IllegalArgumentException("L'ordre ha de tenir una posició per tecla");
+        for(int p : ordre) {
+            if(p < 0 || p >= n || vista[p]) throw new IllegalArgumentException("L'ordre no és una permutació de les tecles");
+            vista[p] = true;
+        }
+        return new QAProblem(this, ordre);
     }
 
     public String getSimbols() {
@@ -25,14 +70,44 @@ public class QAProblem {
     public PairsFrequency getFreq() {
         return freq;
     }
+    public int getColumnes() {
+        return columnes;
+    }
+    public DistanceMatrix getDistancies() {
+        return distancies;
+    }
+    public int getNumSimbols() {
+        return n;
+    }
+    // Ordre de les posicions respecte de la graella, o null si el problema no està reordenat
+    public int[] getOrdre() {
+        return ordre;
+    }
 
-    // Calcula el cost d'una solució, sigui parcial o no
+    // Retorna l'índex del símbol c dins de simbols, o -1 si no hi és
+    public int indexOf(char c) {
+        return simbols.indexOf(c);
+    }
+
+    // Retorna la freqüència entre els símbols d'índexs a i b
+    public int flux(int a, int b) {
+        return flux[a*n + b];
+    }
+
+    // Calcula el cost d'un layout en l'ordre de la graella, sigui parcial o no
     public double costSolucio(String solucio) {
+        // Traduïm la solució a índexs densos per no haver de buscar cada símbol dins del bucle
+        int[] idx = new int[solucio.length()];
+        for(int i=0; i < idx.length; i++) {
+            idx[i] = freq.getIndex(solucio.charAt(i));
+        }
+
         double cost = 0;
-        for(int i=0; i < solucio.length(); i++) {
-            for(int j=i+1; j<solucio.length(); j++) {
-                Integer f = freq.get(solucio.charAt(i), solucio.charAt(j));
-                cost += dist(i,j) * f;
+        for(int i=0; i < idx.length; i++) {
+            if(idx[i] < 0) continue;
+            for(int j=i+1; j<idx.length; j++) {
+                if(idx[j] < 0) continue;
+                cost += distancies.get(i,j) * freq.get(idx[i], idx[j]);
             }
         }
         return cost;
@@ -40,27 +115,91 @@ public class QAProblem {
 
     // El cost de la solució es calcula sumant
     // freqüència lletres (i,j) * distància entre tecles (i,j) per tots els parells (i,j)
+    // d'un layout en l'ordre de la graella
     public double costSolucio(Character[] solucio) {
         double cost = 0;
         for(int i=0; i < solucio.length; i++) {
             if(solucio[i] == null) continue;
             for(int j=i+1; j<solucio.length; j++) {
                 if(solucio[j] == null) continue;
-                Integer f = freq.get(solucio[i], solucio[j]);
-                cost += dist(i,j) * f;
+                cost += distancies.get(i,j) * freq.get(solucio[i], solucio[j]);
             }
         }
         return cost;
     }
     
-    // Caldula la distància euclidianta entre dues posicions del teclat i j
-    public double dist(int i, int j) {
-        int fila_i = i / columnes;
-        int columna_i = i % columnes;
-        int fila_j = j / columnes;
-        int columna_j = j % columnes;
+    // Cost d'una solució parcial representada amb índexs de símbols:
+    // la posició p conté el símbol solucio[p], per a tota p < m
+    public double costSolucio(int[] solucio, int m) {
+        double cost = 0;
+        for(int i=0; i < m; i++) {
+            for(int j=i+1; j < m; j++) {
+                cost += dist(i,j) * flux[solucio[i]*n + solucio[j]];
+            }
+        }
+        return cost;
+    }
+
+    // Increment del cost en col·locar el símbol s a la posició m
+    // d'una solució parcial de mida m
+    public double costAfegir(int[] solucio, int m, int s) {
+        double cost = 0;
+        for(int p=0; p < m; p++) {
+            cost += dist(p,m) * flux[s*n + solucio[p]];
+        }
+        return cost;
+    }
+
+    // Variació del cost d'una solució completa en intercanviar els símbols de les posicions i i j,
+    // en O(n) i sense modificar-la. Només canvien els parells que involucren i o j: el símbol
+    // a = solucio[i] passa a j i b = solucio[j] passa a i, de manera que
+    // delta = suma per k != i,j de (f(b,k) - f(a,k)) * (d(i,k) - d(j,k))
+    public double deltaIntercanvi(int[] solucio, int i, int j) {
+        int filaA = solucio[i]*n;
+        int filaB = solucio[j]*n;
+        double delta = 0;
+        for(int k=0; k < n; k++) {
+            int df = flux[filaB + solucio[k]] - flux[filaA + solucio[k]];
+            if(df == 0 || k == i || k == j) continue;
+            delta += df * (dist(i,k) - dist(j,k));
+        }
+        return delta;
+    }
 
-        // Distància euclidiana = sqrt((x1-x2)^2 + (y1-y2)^2)
-        return Math.sqrt(Math.pow(fila_i - fila_j, 2) + Math.pow(columna_i - columna_j, 2));
+    // Converteix una solució expressada amb índexs de símbols en una disposició de caràcters
+    // en l'ordre de la graella
+    public char[] toLayout(int[] solucio) {
+        char[] layout = new char[n];
+        for(int p=0; p < n; p++) {
+            layout[ordre == null ? p : ordre[p]] = simbols.charAt(solucio[p]);
+        }
+        return layout;
+    }
+
+    // Converteix una disposició de caràcters en l'ordre de la graella en una solució expressada
+    // amb índexs de símbols
+    public int[] toIndexos(char[] layout) {
+        int[] solucio = new int[layout.length];
+        for(int p=0; p < layout.length; p++) {
+            solucio[p] = indexOf(layout[ordre == null ? p : ordre[p]]);
+        }
+        return solucio;
+    }
+
+    // Indica si el layout donat, en l'ordre de la graella, és una permutació dels símbols del problema
+    public boolean esLayout(char[] layout) {
+        if(layout.length != n) return false;
+        boolean[] vist = new boolean[n];
+        for(char c : layout) {
+            int s = indexOf(c);
+            if(s < 0 || vist[s]) return false;
+            vist[s] = true;
+        }
+        return true;
+    }
+
+    // Retorna la distància euclidiana entre dues posicions del problema i j
+    public double dist(int i, int j) {
+        return ordre == null ? distancies.get(i, j) : distOrdenades[i*n + j];
     }
 }
@@ -0,0 +1,55 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
+
+import java.util.function.Function;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.Bound;
+
+/**
+ * Dades d'una execució del Branch And Bound que comparteixen totes les tasques: el problema,
+ * la millor solució, el control de la cerca i la configuració de l'exploració.
+ * Si l'arbre és el del problema sencer, la millor solució pot venir també d'altres solvers que
+ * comparteixen el control, com els d'un portfolio.
+ */
+final class BranchAndBoundContext {
+    final QAProblem problem;
+    final Function<QAProblem, Bound> boundFactory;
+    final Incumbent incumbent;
+    final SearchControl control;
+    final GridSymmetry simetria;
+    final SymbolClasses classes;
+    final NodeSelection seleccio;
+    // Nombre màxim de nodes oberts de cada subarbre amb NodeSelection.HYBRID
+    final int maxOberts;
+    // Profunditat fins a la qual es creen subtasques
+    final int splitDepth;
+    // Indica si es poden adoptar les solucions trobades fora d'aquest Branch And Bound
+    private final boolean comparteix;
+
+    BranchAndBoundContext(QAProblem problem, Function<QAProblem, Bound> boundFactory, Incumbent incumbent,
+                          SearchControl control, boolean trencaSimetries, NodeSelection seleccio,
+                          int maxOberts, int splitDepth, boolean comparteix) {
+        this.problem = problem;
+        this.boundFactory = boundFactory;
+        this.incumbent = incumbent;
+        this.control = control;
+        this.simetria = new GridSymmetry(problem, trencaSimetries);
+        this.classes = new SymbolClasses(problem);
+        this.seleccio = seleccio;
+        this.maxOberts = maxOberts;
+        this.splitDepth = splitDepth;
+        this.comparteix = comparteix;
+    }
+
+    // Si la millor solució de tota la cerca és millor que la pròpia, l'adopta per podar-hi. Una
+    // solució trobada fora no té per què respectar les posicions fixades, i per això només es fa
+    // quan es comparteix
+    void importa() {
+        if(!comparteix || control.getSharedBestCost() >= incumbent.getCost()) return;
+        char[] layout = control.getSharedBestLayout();
+        if(layout == null) return;
+        int[] solucio = problem.toIndexos(layout);
+        incumbent.offer(solucio, problem.costSolucio(solucio, solucio.length));
+    }
+}
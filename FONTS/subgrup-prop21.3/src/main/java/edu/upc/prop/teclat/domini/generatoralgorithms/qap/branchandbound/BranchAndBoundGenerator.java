@@ -1,59 +1,185 @@
 package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
 import edu.upc.prop.teclat.domini.PairsFrequency;
 import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.GreedyGenerator;
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.Bound;
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler.BoundGilmoreLawler;
 
 /**
- * Solver de QAPProblem que utilitza un Branch And Bound
+ * Solver de QAPProblem que utilitza un Branch And Bound. Els nivells superiors de l'arbre
+ * es reparteixen entre els fils del fork-join pool comú i tots poden podar amb la mateixa
+ * millor solució compartida. La solució inicial, que fixa la primera cota superior, s'obté amb
+ * un generador configurable (per defecte el greedy) i, opcionalment, d'un layout donat.
+ * L'ordre en què s'exploren els nodes de cada subarbre es tria amb {@link NodeSelection}.
  * @author Pau Marín Roig (pau.marin.roig@estudiantat.upc.edu)
  */
 public class BranchAndBoundGenerator implements GeneratorAlgorithm {
-    private QAProblem problem;
-    private Bound bound;
-    private String bestSol;
-    private double costBestSol = Double.MAX_VALUE;
+    // Nombre mínim de subarbres per fil que volem generar abans de deixar de dividir
+    private static final int SUBARBRES_PER_FIL = 16;
+    /** Estratègia de selecció de nodes per defecte*/
+    public static final NodeSelection SELECCIO = NodeSelection.HYBRID;
+    /** Nombre màxim de nodes oberts per subarbre per defecte amb NodeSelection.HYBRID*/
+    public static final int MAX_NODES_OBERTS = 50_000;
+
+    private final boolean parallel;
+    private final Function<QAProblem, Bound> boundFactory;
+    // Generador de la solució inicial i temps màxim que hi pot dedicar
+    private final GeneratorAlgorithm seedGenerator;
+    private final long seedMillis;
+    private final NodeSelection seleccio;
+    private final int maxNodesOberts;
     
     public BranchAndBoundGenerator() {
+        this(true);
+    }
+
+    // Permet obtenir la solució inicial amb un altre generador (per exemple una cerca local
+    // o una tabu search) amb un límit de temps, per començar a podar amb una cota més ajustada
+    public BranchAndBoundGenerator(GeneratorAlgorithm seedGenerator, long seedMillis) {
+        this(true, BoundGilmoreLawler::new, seedGenerator, seedMillis);
+    }
+
+    // Permet desactivar l'exploració en paral·lel
+    public BranchAndBoundGenerator(boolean parallel) {
+        this(parallel, BoundGilmoreLawler::new);
+    }
+
+    // Permet escollir la cota emprada (per exemple AdaptiveGilmoreLawler::new). Cada subarbre crea la seva pròpia instància
+    public BranchAndBoundGenerator(boolean parallel, Function<QAProblem, Bound> boundFactory) {
+        this(parallel, boundFactory, new GreedyGenerator(), SearchControl.SENSE_LIMIT);
+    }
+
+    // Permet escollir el generador de la solució inicial. seedMillis pot ser SearchControl.SENSE_LIMIT
+    public BranchAndBoundGenerator(boolean parallel, Function<QAProblem, Bound> boundFactory,
+                                   GeneratorAlgorithm seedGenerator, long seedMillis) {
+        this(parallel, boundFactory, seedGenerator, seedMillis, SELECCIO, MAX_NODES_OBERTS);
+    }
+
+    // Permet escollir l'estratègia de selecció de nodes. maxNodesOberts només limita NodeSelection.HYBRID
+    public BranchAndBoundGenerator(NodeSelection seleccio, int maxNodesOberts) {
+        this(true, BoundGilmoreLawler::new, new GreedyGenerator(), SearchControl.SENSE_LIMIT, seleccio, maxNodesOberts);
+    }
+
+    // Constructora completa
+    public BranchAndBoundGenerator(boolean parallel, Function<QAProblem, Bound> boundFactory,
+                                   GeneratorAlgorithm seedGenerator, long seedMillis,
+                                   NodeSelection seleccio, int maxNodesOberts) {
+        if(seedMillis < 0) throw new IllegalArgumentException("El temps de la solució inicial no pot ser negatiu");
+        if(maxNodesOberts < 1) throw new IllegalArgumentException("El límit de nodes oberts ha de ser positiu");
+        this.parallel = parallel;
+        this.boundFactory = boundFactory;
+        this.seedGenerator = seedGenerator;
+        this.seedMillis = seedMillis;
+        this.seleccio = seleccio;
+        this.maxNodesOberts = maxNodesOberts;
+    }
+
+    // Si acaba sense que l'aturi el control, la solució és òptima
+    @Override
+    public boolean esExacte() {
+        return true;
+    }
+
+    // La cota no hi surt: no canvia la solució òptima, només el temps per trobar-la
+    @Override
+    public String getConfiguracio() {
+        return getClass().getSimpleName() + "(" + seedGenerator.getConfiguracio() + "," + seedMillis + ","
+                + seleccio + "," + maxNodesOberts + ")";
     }
 
     // Resol el problema QAP amb una bona cota inicial
     public char[] solve(String simbols, int cols, PairsFrequency pairsFreq) {
-        this.problem = new QAProblem(cols, simbols, pairsFreq);
-        this.bound = new BoundGilmoreLawler(problem);
-        
-        // Obtenim un bon bound fent un greedy
-        GreedyGenerator greedy = new GreedyGenerator();
-        bestSol = new String (greedy.solve(simbols, cols, pairsFreq));
-        costBestSol = problem.costSolucio(bestSol);
+        return solve(simbols, cols, pairsFreq, new SearchControl());
+    }
+
+    // Resol el problema QAP fins que s'acaba l'arbre o s'esgota el control. Cada nova millor
+    // solució es notifica al control, i si la cerca s'atura es retorna la millor trobada
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
+        return solve(simbols, cols, pairsFreq, null, control);
+    }
+
+    // Igual que l'anterior, però partint també del layout donat (per exemple, l'actual del teclat):
+    // la primera cota superior és la millor entre aquest layout i el del generador inicial, que
+    // també hi comença.
+    // layoutInicial pot ser null, i si no ho és ha de ser una permutació de simbols
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, char[] layoutInicial, SearchControl control) {
+        QAProblem problem = new QAProblem(cols, simbols, pairsFreq);
+        if(layoutInicial != null && !problem.esLayout(layoutInicial)) {
+            throw new IllegalArgumentException("El layout inicial no és una permutació dels símbols");
+        }
+
+        // Obtenim un bon bound amb el generador inicial, dins del seu temps
+        int[] inicial = problem.toIndexos(seedGenerator.solve(simbols, cols, pairsFreq, layoutInicial, control.subControl(seedMillis)));
+        Incumbent incumbent = new Incumbent(inicial, problem.costSolucio(inicial, inicial.length));
+        if(layoutInicial != null) {
+            int[] donat = problem.toIndexos(layoutInicial);
+            incumbent.offer(donat, problem.costSolucio(donat, donat.length));
+        }
+        control.reportSolution(problem.toLayout(incumbent.getSolucio()), incumbent.getCost());
+        if(control.shouldStop()) return problem.toLayout(incumbent.getSolucio());
 
         // Fem el branch and bound
-        branch_and_bound("", problem.getSimbols());
-
-        return bestSol.toCharArray();
-    }
-
-    // Aplica l'algoritme branch and bound fins trobar el mínim global del cost
-    private void branch_and_bound(String partialSol, String availableSymbols) {
-        if(partialSol.length() == problem.getSimbols().length()) {
-            // Si la solució parcial és completa, comprovem si és millor que la millor solució trobada fins ara
-            double cost = problem.costSolucio(partialSol);
-            if(cost < costBestSol) {
-                bestSol = partialSol;
-                costBestSol = cost;
-            }
-        } else {
-            // Si la solució parcial no és completa, generem les possibles extensions
-            for(Character symbol : availableSymbols.toCharArray()) {
-                String candidateSol = partialSol + symbol;
-                String candidateSym = availableSymbols.replace(symbol.toString(), "");
-                if(bound.getBound(candidateSol, availableSymbols) < costBestSol) {
-                    branch_and_bound(candidateSol, candidateSym);
-                }
-            }
+        explora(problem, incumbent, new PartialSolution(problem), true, control);
+        return problem.toLayout(incumbent.getSolucio());
+    }
+
+    // Completa de manera òptima una solució fixant-ne les m primeres posicions i tornant a assignar
+    // la resta amb el Branch And Bound. La solució inicial, que ha de ser completa, fixa la primera
+    // cota superior. El problema pot estar reordenat per deixar al final les posicions lliures, i les
+    // simetries de la graella no es trenquen, ja que les posicions fixades no les respecten.
+    // Retorna la millor solució trobada, que és la inicial si no n'hi ha cap de millor
+    public int[] completa(QAProblem problem, int[] inicial, int m, SearchControl control) {
+        if(!esPermutacio(inicial) || inicial.length != problem.getNumSimbols()) {
+            throw new IllegalArgumentException("La solució inicial no és una permutació dels símbols");
+        }
+        if(m < 0 || m > inicial.length) throw new IllegalArgumentException("Nombre de posicions fixades incorrecte");
+        Incumbent incumbent = new Incumbent(inicial, problem.costSolucio(inicial, inicial.length));
+        PartialSolution prefix = new PartialSolution(problem);
+        for(int p = 0; p < m; p++) prefix.push(inicial[p]);
+        explora(problem, incumbent, prefix, false, control);
+        return incumbent.getSolucio();
+    }
+
+    // Explora l'arbre que penja de la solució parcial donada, en paral·lel si cal. Només l'arbre
+    // sencer del problema sense reordenar pot adoptar les solucions que altres solvers notifiquen al control
+    private void explora(QAProblem problem, Incumbent incumbent, PartialSolution arrel, boolean trencaSimetries,
+                         SearchControl control) {
+        boolean compartit = arrel.getMida() == 0 && problem.getOrdre() == null;
+        int splitDepth = parallel ? splitDepth(arrel.getMida(), problem.getNumSimbols()) : 0;
+        BranchAndBoundContext context = new BranchAndBoundContext(problem, boundFactory, incumbent, control,
+                trencaSimetries, seleccio, maxNodesOberts, splitDepth, compartit);
+        BranchAndBoundTask tasca = new BranchAndBoundTask(context, arrel);
+        if(parallel) ForkJoinPool.commonPool().invoke(tasca);
+        else tasca.invoke();
+    }
+
+    private static boolean esPermutacio(int[] solucio) {
+        boolean[] vist = new boolean[solucio.length];
+        for(int s : solucio) {
+            if(s < 0 || s >= solucio.length || vist[s]) return false;
+            vist[s] = true;
+        }
+        return true;
+    }
+
+    // Profunditat fins a la qual es divideix l'arbre en tasques, partint de la profunditat inici: la
+    // mínima que genera prou subarbres perquè tots els fils tinguin feina
+    private static int splitDepth(int inici, int n) {
+        long objectiu = (long) SUBARBRES_PER_FIL * ForkJoinPool.getCommonPoolParallelism();
+        long subarbres = 1;
+        int depth = inici;
+        while(depth < n - 1 && subarbres < objectiu) {
+            subarbres *= n - depth;
+            depth++;
         }
+        return depth;
     }
 }
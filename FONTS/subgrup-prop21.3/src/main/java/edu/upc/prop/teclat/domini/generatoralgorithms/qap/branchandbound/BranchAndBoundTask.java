@@ -0,0 +1,249 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.RecursiveAction;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.Bound;
+
+/**
+ * Explora el subarbre del Branch And Bound que penja d'una solució parcial.
+ * Als nivells superiors a {@code splitDepth} cada fill es converteix en una nova tasca
+ * del fork-join pool; a partir d'aquí el subarbre es recorre dins del fil amb l'estratègia
+ * de {@link NodeSelection} configurada.
+ * Cada tasca compta els nodes que genera i els comunica al {@link SearchControl} cada
+ * {@code PAS_CONTROL} nodes, per no fer competir tots els fils pels comptadors del control (i dels
+ * seus pares) a cada node. Quan el control demana aturar-se totes les tasques deixen d'expandir
+ * nodes, i per tant un límit de nodes es pot superar en menys de {@code PAS_CONTROL} per fil.
+ */
+class BranchAndBoundTask extends RecursiveAction {
+    // Les tasques només viuen dins del fork-join pool i no es serialitzen mai
+    private static final long serialVersionUID = 1L;
+    // Cada quants nodes es comuniquen al control els nodes comptats
+    private static final int PAS_CONTROL = 256;
+    // Cada quants nodes es consulta la millor solució de tota la cerca
+    private static final int PERIODE_IMPORTACIO = 1024;
+
+    private final transient BranchAndBoundContext context;
+    private final transient PartialSolution partialSol;
+    // Cada tasca té el seu Bound, ja que les implementacions poden tenir estat
+    private transient Bound bound;
+    // Fills de cada nivell de la profunditat ordenada: símbol i cota, per no reservar-los a cada node
+    private transient int[][] fillsSimbol;
+    private transient double[][] fillsCota;
+    // Nodes comptats per aquesta tasca
+    private transient long nodes = 0;
+    // Nodes comptats que encara no s'han comunicat al control
+    private transient int pendents = 0;
+
+    BranchAndBoundTask(BranchAndBoundContext context, PartialSolution partialSol) {
+        this.context = context;
+        this.partialSol = partialSol;
+    }
+
+    @Override
+    protected void compute() {
+        try {
+            exploraOParteix();
+        } finally {
+            if(pendents > 0) comunica();
+        }
+    }
+
+    private void exploraOParteix() {
+        bound = context.boundFactory.apply(context.problem);
+        if(partialSol.getMida() >= context.splitDepth || partialSol.getMida() >= context.problem.getNumSimbols() - 1
+                || context.classes.nomesFaltenNuls(partialSol)) {
+            explora();
+            return;
+        }
+
+        // Creem una subtasca, amb una còpia de la solució parcial, per cada extensió que no es pot podar
+        List<BranchAndBoundTask> subtasques = new ArrayList<>();
+        for(int s = 0; s < context.problem.getNumSimbols(); s++) {
+            if(!candidat(partialSol, s)) continue;
+            if(!compta()) break;
+            partialSol.push(s);
+            if(!podat(partialSol)) {
+                subtasques.add(new BranchAndBoundTask(context, partialSol.copy()));
+            }
+            partialSol.pop();
+        }
+        // Els nodes d'aquest nivell es comuniquen abans d'esperar les subtasques
+        if(pendents > 0) comunica();
+        invokeAll(subtasques);
+    }
+
+    private void explora() {
+        switch(context.seleccio) {
+            case DEPTH_FIRST:
+                branch_and_bound();
+                break;
+            case ORDERED_DEPTH_FIRST:
+                branch_and_bound_ordenat(partialSol);
+                break;
+            default:
+                best_first();
+                break;
+        }
+    }
+
+    // Aplica l'algoritme branch and bound fins trobar el mínim global del cost,
+    // podant amb la millor solució trobada per qualsevol fil
+    private void branch_and_bound() {
+        if(context.classes.nomesFaltenNuls(partialSol)) {
+            ofereix(partialSol);
+        } else {
+            // Si la solució parcial no és completa, generem les possibles extensions
+            for(int s = 0; s < context.problem.getNumSimbols(); s++) {
+                if(!candidat(partialSol, s)) continue;
+                if(!compta()) return;
+                partialSol.push(s);
+                if(!podat(partialSol)) {
+                    branch_and_bound();
+                }
+                partialSol.pop();
+            }
+        }
+    }
+
+    // Igual que branch_and_bound, però calcula primer la cota de tots els fils i els explora de
+    // menor a major cota, de manera que es troben abans bones solucions. Com que estan ordenats,
+    // en arribar al primer fill que es pot podar es poden podar també tots els següents
+    private void branch_and_bound_ordenat(PartialSolution sol) {
+        if(context.classes.nomesFaltenNuls(sol)) {
+            ofereix(sol);
+            return;
+        }
+        int m = sol.getMida();
+        if(fillsSimbol == null) {
+            fillsSimbol = new int[context.problem.getNumSimbols()][];
+            fillsCota = new double[context.problem.getNumSimbols()][];
+        }
+        if(fillsSimbol[m] == null) {
+            fillsSimbol[m] = new int[context.problem.getNumSimbols()];
+            fillsCota[m] = new double[context.problem.getNumSimbols()];
+        }
+        int[] simbols = fillsSimbol[m];
+        double[] cotes = fillsCota[m];
+
+        // Calculem les cotes dels fils i els ordenem per inserció, ja que n'hi ha pocs
+        int fills = 0;
+        for(int s = 0; s < context.problem.getNumSimbols(); s++) {
+            if(!candidat(sol, s)) continue;
+            if(!compta()) return;
+            sol.push(s);
+            double cota = getBound(sol, true);
+            sol.pop();
+            if(cota >= context.incumbent.getCost()) continue;
+            int k = fills++;
+            while(k > 0 && cotes[k - 1] > cota) {
+                simbols[k] = simbols[k - 1];
+                cotes[k] = cotes[k - 1];
+                k--;
+            }
+            simbols[k] = s;
+            cotes[k] = cota;
+        }
+
+        for(int k = 0; k < fills; k++) {
+            if(cotes[k] >= context.incumbent.getCost()) break;
+            sol.push(simbols[k]);
+            branch_and_bound_ordenat(sol);
+            sol.pop();
+        }
+    }
+
+    // Node obert de la cerca best-first
+    private static final class Node {
+        final PartialSolution sol;
+        final double cota;
+
+        Node(PartialSolution sol, double cota) {
+            this.sol = sol;
+            this.cota = cota;
+        }
+    }
+
+    // Expandeix sempre el node obert de cota mínima; a igual cota, el més profund. Quan el node de
+    // cota mínima ja no pot millorar la millor solució, tampoc ho pot fer cap altre i s'acaba. Amb
+    // NodeSelection.HYBRID, si la cua arriba al límit de nodes oberts, el node tret s'explora en
+    // profunditat ordenada en lloc d'afegir-ne els fills a la cua
+    private void best_first() {
+        PriorityQueue<Node> oberts = new PriorityQueue<>((a, b) -> a.cota != b.cota
+                ? Double.compare(a.cota, b.cota) : Integer.compare(b.sol.getMida(), a.sol.getMida()));
+        oberts.add(new Node(partialSol.copy(), Double.NEGATIVE_INFINITY));
+        boolean limitat = context.seleccio == NodeSelection.HYBRID;
+
+        while(!oberts.isEmpty()) {
+            Node node = oberts.poll();
+            if(node.cota >= context.incumbent.getCost()) return;
+            PartialSolution sol = node.sol;
+            if(context.classes.nomesFaltenNuls(sol)) {
+                ofereix(sol);
+                continue;
+            }
+            if(limitat && oberts.size() >= context.maxOberts) {
+                branch_and_bound_ordenat(sol);
+                if(context.control.shouldStop()) return;
+                continue;
+            }
+
+            for(int s = 0; s < context.problem.getNumSimbols(); s++) {
+                if(!candidat(sol, s)) continue;
+                if(!compta()) return;
+                sol.push(s);
+                double cota = getBound(sol, true);
+                if(cota < context.incumbent.getCost()) {
+                    // Els fills que ja només tenen símbols sense flux per col·locar no cal posar-los a la cua
+                    if(context.classes.nomesFaltenNuls(sol)) ofereix(sol);
+                    else oberts.add(new Node(sol.copy(), cota));
+                }
+                sol.pop();
+            }
+        }
+    }
+
+    // Compta un node i, periòdicament, el comunica al control i adopta la millor solució que s'hagi
+    // trobat fora del Branch And Bound. Retorna si la cerca pot continuar; entre comunicacions només
+    // es consulta si una altra tasca ja ha aturat el control
+    private boolean compta() {
+        if(++nodes % PERIODE_IMPORTACIO == 0) context.importa();
+        if(++pendents < PAS_CONTROL) return !context.control.isStopped();
+        return comunica();
+    }
+
+    // Comunica al control els nodes pendents i retorna si la cerca pot continuar
+    private boolean comunica() {
+        int quantitat = pendents;
+        pendents = 0;
+        return context.control.countNodes(quantitat);
+    }
+
+    // Indica si cal provar el símbol s com a següent de la solució parcial
+    private boolean candidat(PartialSolution sol, int s) {
+        return !sol.isUsat(s) && context.classes.permet(sol, s) && context.simetria.permet(sol, s);
+    }
+
+    // Completa la solució parcial amb els símbols sense flux que falten (ja no canvien el cost)
+    // i la proposa com a millor solució
+    private void ofereix(PartialSolution sol) {
+        int afegits = context.classes.completa(sol);
+        if(context.incumbent.offer(sol.getSimbols(), sol.getCost())) {
+            context.control.reportSolution(context.problem.toLayout(sol.getSimbols()), sol.getCost());
+        }
+        for(int k = 0; k < afegits; k++) sol.pop();
+    }
+
+    // Cota del node amb la millor solució actual. Si no el poda i es guarda, és la cota completa
+    private double getBound(PartialSolution sol, boolean guardat) {
+        return bound.getBound(sol.getSimbols(), sol.getMida(), sol.getUsats(), context.incumbent.getCost(), guardat);
+    }
+
+    // Indica si el node es pot podar amb la millor solució actual
+    private boolean podat(PartialSolution sol) {
+        return getBound(sol, false) >= context.incumbent.getCost();
+    }
+}
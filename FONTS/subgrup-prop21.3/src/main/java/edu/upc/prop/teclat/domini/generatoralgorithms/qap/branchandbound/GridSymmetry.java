@@ -0,0 +1,86 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Trenca les simetries de la graella del teclat al Branch And Bound.
+ * Les reflexions i rotacions de la graella que deixen invariant el conjunt de tecles ocupades
+ * (l'última fila pot ser incompleta) conserven totes les distàncies, i per tant el cost de qualsevol
+ * layout. De cada classe de layouts equivalents només cal explorar-ne un: el lexicogràficament
+ * mínim, vist com la seqüència de símbols per posició. Per cada simetria g, si p és la primera
+ * posició que g mou, aquest layout compleix símbol(p) &lt; símbol(g(p)), amb p &lt; g(p).
+ * Com que l'arbre omple les posicions en ordre, la restricció es comprova en col·locar el símbol
+ * de g(p); en particular, el símbol de la primera tecla ha de ser el menor de la seva òrbita.
+ */
+final class GridSymmetry {
+    // menors[q]: posicions anteriors a q que han de tenir un símbol menor que el de q
+    private final int[][] menors;
+
+    // Si trencar és fals no s'imposa cap restricció, per exemple quan hi ha posicions ja fixades
+    // que les simetries no respecten
+    GridSymmetry(QAProblem problem, boolean trencar) {
+        int n = problem.getNumSimbols();
+        List<List<Integer>> restriccions = new ArrayList<>();
+        for(int q = 0; q < n; q++) restriccions.add(new ArrayList<>());
+
+        for(int[] g : trencar ? simetries(n, problem.getColumnes()) : new ArrayList<int[]>()) {
+            // Primera posició que la simetria mou (la identitat no en mou cap)
+            int p = 0;
+            while(p < n && g[p] == p) p++;
+            if(p < n && !restriccions.get(g[p]).contains(p)) restriccions.get(g[p]).add(p);
+        }
+
+        menors = new int[n][];
+        for(int q = 0; q < n; q++) {
+            menors[q] = restriccions.get(q).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // Indica si es pot col·locar el símbol s a la següent posició de la solució parcial
+    boolean permet(PartialSolution partialSol, int s) {
+        int[] simbols = partialSol.getSimbols();
+        for(int p : menors[partialSol.getMida()]) {
+            if(simbols[p] > s) return false;
+        }
+        return true;
+    }
+
+    // Retorna les simetries de la graella (incloent-hi la identitat) que deixen invariant el conjunt de
+    // les n primeres posicions, com a permutacions de posicions
+    private static List<int[]> simetries(int n, int columnes) {
+        int files = (n + columnes - 1) / columnes;
+        List<int[]> res = new ArrayList<>();
+        int numCandidates = files == columnes ? 8 : 4;
+        for(int k = 0; k < numCandidates; k++) {
+            int[] g = new int[n];
+            boolean valida = true;
+            for(int p = 0; p < n && valida; p++) {
+                int q = transforma(k, p / columnes, p % columnes, files, columnes);
+                if(q >= n) valida = false;
+                else g[p] = q;
+            }
+            if(valida) res.add(g);
+        }
+        return res;
+    }
+
+    // Aplica la transformació k a la tecla (f, c) d'una graella de files x columnes i retorna la nova posició.
+    // Les transformacions 4 a 7 (transposicions i rotacions de 90 graus) només són vàlides si files == columnes
+    private static int transforma(int k, int f, int c, int files, int columnes) {
+        int nf, nc;
+        switch(k) {
+            case 0: nf = f;                 nc = c;                break; // identitat
+            case 1: nf = f;                 nc = columnes - 1 - c; break; // reflexió horitzontal
+            case 2: nf = files - 1 - f;     nc = c;                break; // reflexió vertical
+            case 3: nf = files - 1 - f;     nc = columnes - 1 - c; break; // rotació de 180 graus
+            case 4: nf = c;                 nc = f;                break; // transposició
+            case 5: nf = columnes - 1 - c;  nc = files - 1 - f;    break; // antitransposició
+            case 6: nf = c;                 nc = files - 1 - f;    break; // rotació de 90 graus
+            default: nf = columnes - 1 - c; nc = f;                break; // rotació de 270 graus
+        }
+        return nf * columnes + nc;
+    }
+}
@@ -0,0 +1,50 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Millor solució trobada fins al moment per un Branch And Bound, compartida
+ * entre tots els fils que exploren l'arbre de cerca.
+ */
+final class Incumbent {
+    // Parell (solució, cost) immutable, perquè es pugui substituir de manera atòmica
+    private static final class Snapshot {
+        final int[] solucio;
+        final double cost;
+
+        Snapshot(int[] solucio, double cost) {
+            this.solucio = solucio;
+            this.cost = cost;
+        }
+    }
+
+    private final AtomicReference<Snapshot> best;
+
+    Incumbent(int[] solucio, double cost) {
+        best = new AtomicReference<>(new Snapshot(solucio.clone(), cost));
+    }
+
+    // Cost de la millor solució trobada, contra el qual poden podar tots els fils
+    double getCost() {
+        return best.get().cost;
+    }
+
+    // Millor solució trobada, amb la posició p ocupada pel símbol d'índex solucio[p]
+    int[] getSolucio() {
+        return best.get().solucio.clone();
+    }
+
+    // Proposa una solució. Només la guarda (fent-ne una còpia) si és estrictament millor
+    // que l'actual i retorna si s'ha guardat
+    boolean offer(int[] solucio, double cost) {
+        Snapshot actual = best.get();
+        if (cost >= actual.cost) return false;
+
+        Snapshot nou = new Snapshot(solucio.clone(), cost);
+        while (cost < actual.cost) {
+            if (best.compareAndSet(actual, nou)) return true;
+            actual = best.get();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,16 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
+
+/**
+ * Estratègia amb què el Branch And Bound tria el següent node a expandir dins de cada subarbre.
+ */
+public enum NodeSelection {
+    /** Profunditat amb els fills en ordre de símbol. No guarda cap node obert*/
+    DEPTH_FIRST,
+    /** Profunditat amb els fills ordenats per cota, de manera que es baixa primer pel més prometedor*/
+    ORDERED_DEPTH_FIRST,
+    /** Sempre s'expandeix el node obert de cota mínima. Els nodes oberts no tenen límit*/
+    BEST_FIRST,
+    /** Com BEST_FIRST mentre hi ha menys nodes oberts que el límit; quan s'arriba al límit,
+     * els nodes que es treuen de la cua s'exploren en profunditat ordenada en lloc d'expandir-los*/
+    HYBRID
+}
@@ -0,0 +1,78 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Solució parcial d'un Branch And Bound representada amb tipus primitius. Els símbols es
+ * col·loquen i es retiren in situ, de manera que recórrer l'arbre no reserva memòria.
+ */
+final class PartialSolution {
+    private final QAProblem problem;
+    // simbols[p] és l'índex del símbol col·locat a la posició p, per p < mida
+    private final int[] simbols;
+    // Màscara de bits dels símbols col·locats: el símbol s és el bit s % 64 de la paraula s / 64
+    private final long[] usats;
+    // costos[p] és el cost de les p primeres posicions
+    private final double[] costos;
+    private int mida;
+
+    PartialSolution(QAProblem problem) {
+        int n = problem.getNumSimbols();
+        this.problem = problem;
+        this.simbols = new int[n];
+        this.usats = new long[(n + 63) / 64];
+        this.costos = new double[n + 1];
+        this.mida = 0;
+    }
+
+    private PartialSolution(PartialSolution altra) {
+        this.problem = altra.problem;
+        this.simbols = altra.simbols.clone();
+        this.usats = altra.usats.clone();
+        this.costos = altra.costos.clone();
+        this.mida = altra.mida;
+    }
+
+    PartialSolution copy() {
+        return new PartialSolution(this);
+    }
+
+    // Col·loca el símbol s a la primera posició lliure
+    void push(int s) {
+        costos[mida + 1] = costos[mida] + problem.costAfegir(simbols, mida, s);
+        simbols[mida++] = s;
+        usats[s >> 6] |= 1L << s;
+    }
+
+    // Retira el darrer símbol col·locat
+    int pop() {
+        int s = simbols[--mida];
+        usats[s >> 6] &= ~(1L << s);
+        return s;
+    }
+
+    boolean isUsat(int s) {
+        return (usats[s >> 6] & (1L << s)) != 0;
+    }
+
+    int getMida() {
+        return mida;
+    }
+
+    boolean isCompleta() {
+        return mida == simbols.length;
+    }
+
+    // Cost de les posicions ocupades
+    double getCost() {
+        return costos[mida];
+    }
+
+    int[] getSimbols() {
+        return simbols;
+    }
+
+    long[] getUsats() {
+        return usats;
+    }
+}
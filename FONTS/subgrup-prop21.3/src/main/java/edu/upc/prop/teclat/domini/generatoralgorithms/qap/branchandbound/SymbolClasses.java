@@ -0,0 +1,91 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Classes de símbols intercanviables del Branch And Bound.
+ * Dos símbols a i b són intercanviables si f(a,k) = f(b,k) per a tot k diferent de a i b: intercanviar-los
+ * en qualsevol layout no en canvia el cost. La relació és transitiva, i els símbols sense flux formen una
+ * sola classe. Dins d'una classe només es prova el primer membre que encara no s'ha col·locat, de manera
+ * que cada classe es col·loca en un sol ordre. Quan ja s'han col·locat tots els símbols amb flux, els
+ * símbols sense flux omplen directament les posicions que queden.
+ */
+final class SymbolClasses {
+    // anterior[s]: membre anterior de la classe de s, o -1 si s n'és el primer
+    private final int[] anterior;
+    // Símbols amb algun flux, i símbols sense flux en ordre d'índex
+    private final int[] actius;
+    private final int[] nuls;
+
+    SymbolClasses(QAProblem problem) {
+        int n = problem.getNumSimbols();
+        anterior = new int[n];
+        // darrer[r]: últim membre de la classe amb representant r
+        int[] darrer = new int[n];
+        List<Integer> representants = new ArrayList<>();
+        List<Integer> llistaActius = new ArrayList<>();
+        List<Integer> llistaNuls = new ArrayList<>();
+
+        for(int s = 0; s < n; s++) {
+            anterior[s] = -1;
+            for(int r : representants) {
+                if(intercanviables(problem, r, s)) {
+                    anterior[s] = darrer[r];
+                    darrer[r] = s;
+                    break;
+                }
+            }
+            if(anterior[s] < 0) {
+                representants.add(s);
+                darrer[s] = s;
+            }
+            if(senseFlux(problem, s)) llistaNuls.add(s);
+            else llistaActius.add(s);
+        }
+        actius = llistaActius.stream().mapToInt(Integer::intValue).toArray();
+        nuls = llistaNuls.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Indica si cal provar el símbol s: només si és el primer membre de la seva classe sense col·locar
+    boolean permet(PartialSolution partialSol, int s) {
+        return anterior[s] < 0 || partialSol.isUsat(anterior[s]);
+    }
+
+    // Indica si tots els símbols que queden per col·locar són sense flux
+    boolean nomesFaltenNuls(PartialSolution partialSol) {
+        if(partialSol.getMida() < actius.length) return false;
+        for(int s : actius) {
+            if(!partialSol.isUsat(s)) return false;
+        }
+        return true;
+    }
+
+    // Col·loca els símbols sense flux que falten a les posicions lliures i retorna quants n'ha col·locat
+    int completa(PartialSolution partialSol) {
+        int afegits = 0;
+        for(int s : nuls) {
+            if(!partialSol.isUsat(s)) {
+                partialSol.push(s);
+                afegits++;
+            }
+        }
+        return afegits;
+    }
+
+    private static boolean intercanviables(QAProblem problem, int a, int b) {
+        for(int k = 0; k < problem.getNumSimbols(); k++) {
+            if(k != a && k != b && problem.flux(a, k) != problem.flux(b, k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean senseFlux(QAProblem problem, int s) {
+        for(int k = 0; k < problem.getNumSimbols(); k++) {
+            if(k != s && problem.flux(s, k) != 0) return false;
+        }
+        return true;
+    }
+}
@@ -12,4 +12,32 @@ public interface Bound {
      * @return Retorna el Bound.
      */
     double getBound(String partialSol, String availableSymbols);
+
+    /**Agafa el Bound d'una solució parcial representada amb índexs de símbols, sense
+     * reservar objectes per a cada node.
+     * @param partialSol Solució parcial: la posició p conté el símbol d'índex partialSol[p]
+     * @param m Nombre de posicions ocupades de partialSol
+     * @param usedSymbols Màscara de bits dels símbols ja col·locats (el bit s de la paraula s/64)
+     *
+     * @return Retorna el Bound.
+     */
+    double getBound(int[] partialSol, int m, long[] usedSymbols);
+
+    /**Agafa el Bound d'una solució parcial sabent el cost de la millor solució coneguda, de manera que
+     * les implementacions es poden estalviar la cota completa quan una de més barata ja hi arriba.
+     * El valor retornat sempre és una cota inferior vàlida. Si és menor que cotaSuperior i el node es
+     * guarda per ordenar-lo o per tornar-lo a comparar amb una millor solució posterior, ha de ser com
+     * a mínim el de getBound; si només es fa servir per decidir immediatament si es poda, pot ser
+     * una cota més fluixa.
+     * @param partialSol Solució parcial: la posició p conté el símbol d'índex partialSol[p]
+     * @param m Nombre de posicions ocupades de partialSol
+     * @param usedSymbols Màscara de bits dels símbols ja col·locats (el bit s de la paraula s/64)
+     * @param cotaSuperior Cost de la millor solució coneguda
+     * @param guardat Indica si el valor es guarda amb el node
+     *
+     * @return Retorna el Bound.
+     */
+    default double getBound(int[] partialSol, int m, long[] usedSymbols, double cotaSuperior, boolean guardat) {
+        return getBound(partialSol, m, usedSymbols);
+    }
 }
\ No newline at end of file
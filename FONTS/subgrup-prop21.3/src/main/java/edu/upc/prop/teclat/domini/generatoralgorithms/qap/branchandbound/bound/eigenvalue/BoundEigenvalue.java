@@ -0,0 +1,156 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.eigenvalue;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.Bound;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler.LinearAssignmentSolver;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler.ShortestAugmentingPath;
+
+/**
+ * Representa el bound de projecció (Hadley, Rendl i Wolkowicz), de la família dels bounds de
+ * valors propis, per als problemes QAP simètrics. El cost de col·locar els r símbols lliures és
+ * 1/2 tr(F X D X^T) + tr(C X^T), on F és el flux entre símbols lliures, D la distància entre
+ * posicions lliures i C el cost d'interacció amb els símbols ja col·locats. Escrivint cada
+ * permutació X com ee^T/r + V Y V^T, amb V una base ortonormal del complement de e i Y ortogonal,
+ * el terme quadràtic es fita amb el producte escalar mínim dels valors propis de V^T F V i V^T D V,
+ * i la resta és un problema d'assignació lineal que es resol exactament.
+ * Els valors propis de les distàncies només depenen de la profunditat i es comparteixen per geometria.
+ */
+public class BoundEigenvalue implements Bound {
+    // Marge relatiu que es resta al terme quadràtic perquè els errors d'arrodoniment dels valors
+    // propis no puguin fer que la cota superi el cost real
+    private static final double MARGE = 1e-9;
+
+    private final QAProblem problem;
+    private final int N;
+    private final DistanceSpectrum espectre;
+    // Còpies locals de les dades de l'espectre per profunditat, per no sincronitzar a cada node
+    private final double[][] valorsDistancia;
+    private final double[][] filesDistancia;
+    private final double[] sumesDistancia;
+
+    // Buffers reutilitzats entre crides per no reservar memòria a cada node
+    private final int[] lliures;
+    private final double[] filesFlux;
+    private final double[][] F;
+    private final double[][] projectada;
+    private final double[][] C;
+    private final LinearAssignmentSolver solver;
+
+    public BoundEigenvalue(QAProblem problem) {
+        this.problem = problem;
+        this.N = problem.getNumSimbols();
+        this.espectre = DistanceSpectrum.of(problem);
+        this.valorsDistancia = new double[N + 1][];
+        this.filesDistancia = new double[N + 1][];
+        this.sumesDistancia = new double[N + 1];
+        this.lliures = new int[N];
+        this.filesFlux = new double[N];
+        this.F = new double[N][N];
+        this.projectada = new double[N][N];
+        this.C = new double[N][N];
+        this.solver = new ShortestAugmentingPath(N);
+    }
+
+    // Calcula el bound per a una solució parcial donada i els símbols disponibles restants
+    public double getBound(String partialSol, String availableSymbols) {
+        int[] sol = new int[N];
+        long[] usats = new long[(N + 63) / 64];
+        for(int p = 0; p < partialSol.length(); p++) {
+            int s = problem.indexOf(partialSol.charAt(p));
+            sol[p] = s;
+            usats[s >> 6] |= 1L << s;
+        }
+        return getBound(sol, partialSol.length(), usats);
+    }
+
+    // Calcula el bound per a una solució parcial expressada amb índexs de símbols. Els
+    // símbols lliures són els que no estan marcats a usedSymbols i les posicions lliures
+    // són de la m a la N-1
+    public double getBound(int[] partialSol, int m, long[] usedSymbols) {
+        double T0 = problem.costSolucio(partialSol, m);
+        int r = N - m;
+        if(r == 0) return T0;
+        carregaDistancies(m);
+
+        int k0 = 0;
+        for(int s = 0; s < N; s++) {
+            if((usedSymbols[s >> 6] & (1L << s)) == 0) lliures[k0++] = s;
+        }
+
+        //Flux entre símbols lliures, amb les sumes per files i la total
+        double sumaFlux = 0;
+        for(int i = 0; i < r; i++) {
+            double fila = 0;
+            for(int j = 0; j < r; j++) {
+                F[i][j] = i == j ? 0 : problem.flux(lliures[i], lliures[j]);
+                fila += F[i][j];
+            }
+            filesFlux[i] = fila;
+            sumaFlux += fila;
+        }
+
+        //Terme lineal: interacció amb els símbols col·locats més la part de la projecció
+        //que depèn de les sumes per files, (1/r) * filesFlux * filesDistancia^T
+        double[] filesD = filesDistancia[m];
+        for(int i = 0; i < r; i++) {
+            int s = lliures[i];
+            for(int k = 0; k < r; k++) {
+                double c = filesFlux[i] * filesD[k] / r;
+                for(int p = 0; p < m; p++) {
+                    c += problem.flux(s, partialSol[p]) * problem.dist(m + k, p);
+                }
+                C[i][k] = c;
+            }
+        }
+        double lineal = solver.solve(C, r);
+
+        //Terme quadràtic: producte escalar mínim dels valors propis de les matrius projectades,
+        //amb els del flux creixents i els de les distàncies decreixents
+        double quadratic = 0;
+        if(r > 1) {
+            projecta(F, r, projectada);
+            double[] valorsFlux = JacobiEigenvalues.valorsPropis(projectada, r - 1);
+            double[] valorsD = valorsDistancia[m];
+            for(int i = 0; i < r - 1; i++) quadratic += valorsFlux[i] * valorsD[i];
+        }
+        quadratic -= sumaFlux * sumesDistancia[m] / ((double) r * r);
+        quadratic -= MARGE * Math.abs(quadratic);
+
+        //Cada parell de símbols lliures es compta des dels dos extrems a tr(F X D X^T)
+        return T0 + lineal + 0.5 * quadratic;
+    }
+
+    private void carregaDistancies(int m) {
+        if(valorsDistancia[m] != null) return;
+        valorsDistancia[m] = espectre.getValors(m);
+        filesDistancia[m] = espectre.getFiles(m);
+        sumesDistancia[m] = espectre.getSuma(m);
+    }
+
+    // Escriu a les r-1 primeres files i columnes de res la matriu V^T M V, on M és la submatriu
+    // simètrica r x r de m i V són les r-1 últimes columnes del reflector de Householder H que porta
+    // e/sqrt(r) a e1. Com que H = I - 2ww^T/c, amb w = e/sqrt(r) - e1 i c = w^T w, es té
+    // HMH = M - (2/c)(w u^T + u w^T) + (4a/c^2) w w^T, amb u = M w i a = w^T M w, en O(r^2)
+    static void projecta(double[][] m, int r, double[][] res) {
+        if(r < 2) return;
+        double arrel = 1 / Math.sqrt(r);
+        double[] w = new double[r];
+        for(int i = 0; i < r; i++) w[i] = arrel;
+        w[0] -= 1;
+        double c = 2 - 2 * arrel;
+
+        double[] u = new double[r];
+        double a = 0;
+        for(int i = 0; i < r; i++) {
+            double ui = 0;
+            for(int j = 0; j < r; j++) ui += m[i][j] * w[j];
+            u[i] = ui;
+            a += w[i] * ui;
+        }
+        for(int i = 1; i < r; i++) {
+            for(int j = 1; j < r; j++) {
+                res[i - 1][j - 1] = m[i][j] - 2 / c * (w[i] * u[j] + u[i] * w[j]) + 4 * a / (c * c) * w[i] * w[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.eigenvalue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.DistanceMatrix;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Dades espectrals de les distàncies entre les posicions lliures d'un teclat, per a cada profunditat
+ * m del Branch And Bound (les posicions lliures són sempre de la m a la N-1). Només depenen de la
+ * geometria, així que es calculen un sol cop per profunditat i es comparteixen entre tots els bounds
+ * i fils a través d'una memòria cau acotada. Els problemes amb les posicions reordenades en tenen
+ * unes de pròpies, fora de la memòria cau.
+ */
+final class DistanceSpectrum {
+    /** Nombre màxim de geometries de teclat que es guarden a la memòria cau*/
+    private static final int MAX_ENTRADES = 8;
+
+    private static final Map<DistanceMatrix, DistanceSpectrum> cache = new LinkedHashMap<DistanceMatrix, DistanceSpectrum>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DistanceMatrix, DistanceSpectrum> eldest) {
+            return size() > MAX_ENTRADES;
+        }
+    };
+
+    private final DistanceMatrix distancies;
+    // Ordre de les posicions respecte de la graella, o null si no estan reordenades
+    private final int[] ordre;
+    private final int N;
+    // Per profunditat m: valors propis de la distància projectada, decreixents
+    private final double[][] valors;
+    // Per profunditat m: sumes per files de la distància entre posicions lliures
+    private final double[][] files;
+    // Per profunditat m: suma de totes les distàncies entre posicions lliures
+    private final double[] sumes;
+
+    private DistanceSpectrum(DistanceMatrix distancies, int[] ordre) {
+        this.distancies = distancies;
+        this.ordre = ordre;
+        this.N = distancies.getNumTecles();
+        this.valors = new double[N + 1][];
+        this.files = new double[N + 1][];
+        this.sumes = new double[N + 1];
+    }
+
+    // Retorna les dades espectrals de les posicions del problema. Les matrius de distàncies es comparteixen
+    // a través de DistanceMatrix.of, així que n'hi ha prou amb comparar-les per identitat
+    static DistanceSpectrum of(QAProblem problem) {
+        if(problem.getOrdre() != null) return new DistanceSpectrum(problem.getDistancies(), problem.getOrdre());
+        synchronized (cache) {
+            return cache.computeIfAbsent(problem.getDistancies(), distancies -> new DistanceSpectrum(distancies, null));
+        }
+    }
+
+    // Valors propis decreixents de la distància projectada entre les posicions lliures a la profunditat m
+    synchronized double[] getValors(int m) {
+        calcula(m);
+        return valors[m];
+    }
+
+    synchronized double[] getFiles(int m) {
+        calcula(m);
+        return files[m];
+    }
+
+    synchronized double getSuma(int m) {
+        calcula(m);
+        return sumes[m];
+    }
+
+    private void calcula(int m) {
+        if(valors[m] != null) return;
+        int r = N - m;
+        double[][] d = new double[r][r];
+        double[] fila = new double[r];
+        double suma = 0;
+        for(int i = 0; i < r; i++) {
+            for(int j = 0; j < r; j++) {
+                d[i][j] = ordre == null ? distancies.get(m + i, m + j) : distancies.get(ordre[m + i], ordre[m + j]);
+                fila[i] += d[i][j];
+            }
+            suma += fila[i];
+        }
+        double[][] projectada = new double[Math.max(0, r - 1)][Math.max(0, r - 1)];
+        BoundEigenvalue.projecta(d, r, projectada);
+        double[] creixents = JacobiEigenvalues.valorsPropis(projectada, r - 1);
+        double[] decreixents = new double[creixents.length];
+        for(int i = 0; i < creixents.length; i++) decreixents[i] = creixents[creixents.length - 1 - i];
+
+        files[m] = fila;
+        sumes[m] = suma;
+        valors[m] = decreixents;
+    }
+}
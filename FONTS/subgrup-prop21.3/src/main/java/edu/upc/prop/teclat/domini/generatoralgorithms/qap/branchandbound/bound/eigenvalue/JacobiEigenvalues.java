@@ -0,0 +1,67 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.eigenvalue;
+
+import java.util.Arrays;
+
+/**
+ * Calcula els valors propis d'una matriu simètrica amb el mètode cíclic de Jacobi: cada rotació
+ * anul·la un element de fora de la diagonal, i es repeteixen escombrades fins que la part de
+ * fora de la diagonal és negligible. Per a les mides d'un teclat convergeix en poques escombrades.
+ */
+final class JacobiEigenvalues {
+    // Nombre màxim d'escombrades
+    private static final int MAX_ESCOMBRADES = 50;
+    // Tolerància relativa de la norma de fora de la diagonal respecte de la de tota la matriu
+    private static final double TOLERANCIA = 1e-14;
+
+    private JacobiEigenvalues() {}
+
+    // Retorna els valors propis de la submatriu simètrica n x n superior esquerra de a, ordenats
+    // creixentment. La submatriu es destrueix
+    static double[] valorsPropis(double[][] a, int n) {
+        double norma = 0;
+        for(int i = 0; i < n; i++) {
+            for(int j = 0; j < n; j++) norma += a[i][j] * a[i][j];
+        }
+
+        for(int escombrada = 0; escombrada < MAX_ESCOMBRADES; escombrada++) {
+            double foraDiagonal = 0;
+            for(int p = 0; p < n; p++) {
+                for(int q = p + 1; q < n; q++) foraDiagonal += 2 * a[p][q] * a[p][q];
+            }
+            if(foraDiagonal <= TOLERANCIA * TOLERANCIA * norma) break;
+
+            for(int p = 0; p < n - 1; p++) {
+                for(int q = p + 1; q < n; q++) {
+                    if(a[p][q] != 0) rota(a, n, p, q);
+                }
+            }
+        }
+
+        double[] valors = new double[n];
+        for(int i = 0; i < n; i++) valors[i] = a[i][i];
+        Arrays.sort(valors);
+        return valors;
+    }
+
+    // Aplica la rotació de Jacobi que anul·la a[p][q] (i a[q][p])
+    private static void rota(double[][] a, int n, int p, int q) {
+        double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+        double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+        if(theta == 0) t = 1;
+        double c = 1 / Math.sqrt(t * t + 1);
+        double s = t * c;
+
+        for(int k = 0; k < n; k++) {
+            double akp = a[k][p];
+            double akq = a[k][q];
+            a[k][p] = c * akp - s * akq;
+            a[k][q] = s * akp + c * akq;
+        }
+        for(int k = 0; k < n; k++) {
+            double apk = a[p][k];
+            double aqk = a[q][k];
+            a[p][k] = c * apk - s * aqk;
+            a[q][k] = s * apk + c * aqk;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler;
+
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Bound de Gilmore Lawler que tria a cada profunditat entre la cota completa i una de barata segons
+ * les taxes de poda que hi mesura. La cota barata és el cost fix més un producte de vectors ordenats,
+ * sense construir la matriu de costos ni resoldre el problema d'assignació lineal.
+ * <ul>
+ *     <li>A les profunditats on la cota barata poda prou nodes, es calcula primer i, si ja arriba a
+ *     la millor solució coneguda, el node es poda sense més feina. On poda poc, com prop de l'arrel,
+ *     se la salta i va directament a la completa.</li>
+ *     <li>Si la cota es guarda amb el node, sempre es calcula la completa quan la barata no poda. Si
+ *     només serveix per decidir si es poda, a les profunditats on la completa gairebé mai no poda
+ *     més que la barata es deixa de calcular.</li>
+ * </ul>
+ * Cada decisió es continua mesurant en una mostra periòdica de nodes, de manera que es pot tornar a
+ * canviar quan millora la solució. Sense la millor solució coneguda, el getBound és el de
+ * {@link BoundGilmoreLawler}.
+ */
+public class AdaptiveGilmoreLawler extends BoundGilmoreLawler {
+    // Mostres mínimes a cada profunditat abans de poder canviar una decisió
+    private static final int MOSTRES_MIN = 32;
+    // Taxa de poda mínima de la cota barata perquè es calculi abans de la completa. Costa una
+    // fracció de la completa, i només compensa si n'estalvia prou
+    private static final double TAXA_MIN_BARATA = 0.25;
+    // Taxa de poda mínima de la cota completa (sobre els nodes que la barata no poda)
+    // perquè es continuï calculant a una profunditat
+    private static final double TAXA_MIN_COMPLETA = 0.05;
+    // Cada quants nodes d'una decisió desactivada es calcula igualment la cota, per seguir mesurant
+    private static final int PERIODE_MOSTREIG = 32;
+    // En arribar a aquestes mostres, els comptadors es divideixen per dos perquè pesin més les recents
+    private static final int MOSTRES_MAX = 1024;
+
+    // Taxes de poda de la cota barata i de la completa a cada profunditat
+    private final TaxaPoda[] barata;
+    private final TaxaPoda[] completa;
+
+    public AdaptiveGilmoreLawler(QAProblem problem) {
+        super(problem);
+        this.barata = new TaxaPoda[N + 1];
+        this.completa = new TaxaPoda[N + 1];
+        for(int m = 0; m <= N; m++) {
+            barata[m] = new TaxaPoda(TAXA_MIN_BARATA);
+            completa[m] = new TaxaPoda(TAXA_MIN_COMPLETA);
+        }
+    }
+
+    // Cota en cascada: la barata si hi sol podar i, si no poda, la completa quan es guarda o quan
+    // toca a aquesta profunditat. Cap de les dues domina l'altra, així que es retorna la més alta
+    @Override
+    public double getBound(int[] partialSol, int m, long[] usedSymbols, double cotaSuperior, boolean guardat) {
+        if(m == N) return getBound(partialSol, m, usedSymbols);
+
+        double cota = Double.NEGATIVE_INFINITY;
+        if(barata[m].calCalcular()) {
+            cota = cotaBarata(partialSol, m, usedSymbols);
+            barata[m].registra(cota >= cotaSuperior);
+            if(cota >= cotaSuperior) return cota;
+        }
+        if(!guardat && !completa[m].calCalcular()) {
+            return cota != Double.NEGATIVE_INFINITY ? cota : cotaBarata(partialSol, m, usedSymbols);
+        }
+
+        cota = Math.max(cota, getBound(partialSol, m, usedSymbols));
+        completa[m].registra(cota >= cotaSuperior);
+        return cota;
+    }
+
+    // Taxa de poda recent d'una cota a una profunditat, que decideix si s'hi calcula
+    private static final class TaxaPoda {
+        private final double taxaMin;
+        // Cotes calculades, quantes han podat i nodes en què no s'ha calculat
+        private int mostres = 0;
+        private int podes = 0;
+        private int saltats = 0;
+
+        TaxaPoda(double taxaMin) {
+            this.taxaMin = taxaMin;
+        }
+
+        boolean calCalcular() {
+            if(mostres < MOSTRES_MIN || podes >= taxaMin * mostres) return true;
+            return ++saltats % PERIODE_MOSTREIG == 0;
+        }
+
+        void registra(boolean poda) {
+            mostres++;
+            if(poda) podes++;
+            if(mostres >= MOSTRES_MAX) {
+                mostres /= 2;
+                podes /= 2;
+            }
+        }
+    }
+}
@@ -1,100 +1,254 @@
 package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler;
 
 import java.util.Arrays;
-import java.util.Collections;
 
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
 import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.Bound;
 
 /**
- * Representa el Bound de Gilmore Lawler per als problemes QAP
+ * Representa el Bound de Gilmore Lawler per als problemes QAP.
+ * Els costos d'interacció amb els símbols ja col·locats (C1) es guarden per nivells i
+ * s'actualitzen incrementalment a partir dels del node pare, i els vectors de distàncies
+ * ordenats només depenen de la profunditat, així que es calculen un sol cop per nivell.
  * @author Pau Marín Roig (pau.marin.roig@estudiantat.upc.edu)
  */
 public class BoundGilmoreLawler implements Bound {
+    /** Algoritme amb què es resol el problema d'assignació lineal de cada node*/
+    public enum Solver {
+        /** Camins augmentants mínims (Jonker-Volgenant), O(n^3)*/
+        SHORTEST_AUGMENTING_PATH,
+        /** Hungarian Algorithm amb cobertura de zeros per línies*/
+        HUNGARIAN
+    }
+
     private QAProblem problem;
-    String partialSol;
-    String availableSymbols;
     int N;
     int m;
 
+    // capes[d][s*N + pos]: cost d'interacció de col·locar el símbol s a la posició pos
+    // amb els d primers símbols de solCapes (només es manté per pos >= d)
+    private final double[][] capes;
+    // fixos[d]: cost de les d primeres posicions de solCapes
+    private final double[] fixos;
+    // Prefix de solució per al qual són vàlides les capes 0..profCapes
+    private final int[] solCapes;
+    private int profCapes;
+
+    // dOrdenades[m]: per cada posició lliure k (de m a N-1), distàncies a la resta
+    // de posicions lliures ordenades creixentment, en files de N-m-1 elements
+    private final double[][] dOrdenades;
+    // dParells[m]: distàncies entre cada parell de posicions lliures (de m a N-1), ordenades creixentment
+    private final double[][] dParells;
+
+    // Buffers reutilitzats entre crides per no reservar memòria a cada node
+    private final int[] lliures;
+    private final int[] tOrdenats;
+    private final int[] fluxosLliures;
+    private final double[][] C;
+
+    private final LinearAssignmentSolver solver;
+
     public BoundGilmoreLawler(QAProblem problem) {
+        this(problem, Solver.SHORTEST_AUGMENTING_PATH);
+    }
+
+    public BoundGilmoreLawler(QAProblem problem, Solver solver) {
         this.problem = problem;
+        this.N = problem.getNumSimbols();
+        this.capes = new double[N + 1][];
+        this.capes[0] = new double[N * N];
+        this.fixos = new double[N + 1];
+        this.solCapes = new int[N];
+        this.profCapes = 0;
+        this.dOrdenades = new double[N + 1][];
+        this.dParells = new double[N + 1][];
+        this.lliures = new int[N];
+        this.tOrdenats = new int[N * N];
+        this.fluxosLliures = new int[N * (N - 1) / 2];
+        this.C = new double[N][N];
+        if(solver == Solver.HUNGARIAN) {
+            this.solver = (cost, r) -> new HungarianAlgorithm(submatriu(cost, r)).solve();
+        } else {
+            this.solver = new ShortestAugmentingPath(N);
+        }
     }
 
     // Calcula el bound per a una solució parcial donada i els símbols disponibles restants
     public double getBound(String partialSol, String availableSymbols) {
-        this.partialSol = partialSol;
-        this.availableSymbols = availableSymbols;
+        int[] sol = new int[N];
+        long[] usats = new long[(N + 63) / 64];
+        for(int p = 0; p < partialSol.length(); p++) {
+            int s = problem.indexOf(partialSol.charAt(p));
+            sol[p] = s;
+            usats[s >> 6] |= 1L << s;
+        }
+        return getBound(sol, partialSol.length(), usats);
+    }
 
+    // Calcula el bound per a una solució parcial expressada amb índexs de símbols. Els
+    // símbols lliures són els que no estan marcats a usedSymbols i les posicions lliures
+    // són de la m a la N-1
+    public double getBound(int[] partialSol, int m, long[] usedSymbols) {
         //Inicialitzem variables
-        N = problem.getSimbols().length();
-        m = partialSol.length();
-        double[][] C1 = new double[N-m][N-m];
-        double[][] C2 = new double[N-m][N-m];
-
-        //C1
-        Character[] partialSolArr = new Character[N];
-        for(int i = 0; i < m; i++) {
-            partialSolArr[i] = partialSol.charAt(i);
+        this.m = m;
+        int r = N - m;
+        actualitzaCapes(partialSol, m);
+        double T0 = fixos[m];
+        if(r == 0) return T0;
+
+        int k0 = 0;
+        for(int s = 0; s < N; s++) {
+            if((usedSymbols[s >> 6] & (1L << s)) == 0) lliures[k0++] = s;
+        }
+
+        //Vectors de trànsit de cada símbol lliure a la resta, ordenats un sol cop per node
+        int mida = r - 1;
+        for(int i = 0; i < r; i++) {
+            t(i, r);
+            Arrays.sort(tOrdenats, i * mida, (i + 1) * mida);
         }
-        for(int i = 0; i < N-m; i++) {
-            for(int k = 0; k < N-m; k++) {
-                partialSolArr[m+k] = availableSymbols.charAt(i);
-                C1[i][k] = problem.costSolucio(partialSolArr);
-                partialSolArr[m+k] = null;
+        double[] d = distanciesOrdenades(m);
+
+        //C1: cost d'interacció de col·locar el símbol lliure i a la posició lliure k
+        //amb els símbols ja col·locats, que ja tenim a la capa m.
+        //C2: fita inferior del cost d'interacció entre símbols lliures, amb el mínim
+        //producte escalar dels vectors ordenats. Cada parell es compta des dels dos
+        //extrems, per això es multiplica per 1/2
+        double[] capa = capes[m];
+        for(int i = 0; i < r; i++) {
+            int fila = lliures[i] * N + m;
+            for(int k = 0; k < r; k++) {
+                C[i][k] = capa[fila + k] + 0.5 * dotProductReversed(i * mida, d, k * mida, mida);
             }
         }
 
-        //C2
-        for(int i = 0; i < N-m; i++) {
-            for(int k = 0; k < N-m; k++) {
-                Integer[] T = t(i);
-                Double[] D = d(k);
-                Arrays.sort(T);
-                Arrays.sort(D, Collections.reverseOrder());
-                C2[i][k] = dotProduct(T, D);
+        //Finalment obtenim la cota resolent el problema d'assignació lineal de C
+        double T1 = solver.solve(C, r);
+        return T0 + T1;
+    }
+
+    //Fita inferior del cost de les solucions que completen la parcial sense resoldre cap assignació,
+    //en O(r^2 log r): el cost fix, més el mínim cost d'interacció de cada símbol lliure amb els ja
+    //col·locats, més el mínim producte escalar dels fluxos entre tots els parells de símbols lliures
+    //i les distàncies entre tots els parells de posicions lliures. És més fluixa que getBound
+    double cotaBarata(int[] partialSol, int m, long[] usedSymbols) {
+        actualitzaCapes(partialSol, m);
+        double T0 = fixos[m];
+        int r = N - m;
+        if(r == 0) return T0;
+
+        int k0 = 0;
+        for(int s = 0; s < N; s++) {
+            if((usedSymbols[s >> 6] & (1L << s)) == 0) lliures[k0++] = s;
+        }
+
+        double[] capa = capes[m];
+        double C1 = 0;
+        for(int i = 0; i < r; i++) {
+            int fila = lliures[i] * N + m;
+            double min = capa[fila];
+            for(int k = 1; k < r; k++) min = Math.min(min, capa[fila + k]);
+            C1 += min;
+        }
+
+        int parells = 0;
+        for(int i = 0; i < r; i++) {
+            for(int j = i + 1; j < r; j++) fluxosLliures[parells++] = problem.flux(lliures[i], lliures[j]);
+        }
+        Arrays.sort(fluxosLliures, 0, parells);
+        double[] d = distanciesParells(m);
+        double C2 = 0;
+        for(int q = 0; q < parells; q++) C2 += fluxosLliures[q] * d[parells - 1 - q];
+        return T0 + C1 + C2;
+    }
+
+    //Còpia de la submatriu r x r superior esquerra, per als algoritmes que treballen
+    //sobre tota la matriu
+    private static double[][] submatriu(double[][] cost, int r) {
+        double[][] res = new double[r][];
+        for(int i = 0; i < r; i++) {
+            res[i] = Arrays.copyOf(cost[i], r);
+        }
+        return res;
+    }
+
+    //Deixa vàlides les capes 0..m per al prefix de partialSol, reaprofitant les del
+    //prefix comú amb la darrera crida i afegint un símbol per capa
+    private void actualitzaCapes(int[] partialSol, int m) {
+        int valides = Math.min(profCapes, m);
+        for(int p = 0; p < valides; p++) {
+            if(solCapes[p] != partialSol[p]) {
+                valides = p;
+                break;
             }
         }
+        if(valides == m) return;
 
-        //Calculem la matriu de costos
-        double[][] C = new double[N-m][N-m];
-        for(int i = 0; i < N-m; i++) {
-            for(int k = 0; k < N-m; k++) {
-                C[i][k] = C1[i][k] + C2[i][k];
+        for(int d = valides + 1; d <= m; d++) {
+            if(capes[d] == null) capes[d] = new double[N * N];
+            double[] anterior = capes[d - 1];
+            double[] actual = capes[d];
+            int s = partialSol[d - 1];
+            solCapes[d - 1] = s;
+            fixos[d] = fixos[d - 1] + anterior[s * N + d - 1];
+            for(int x = 0; x < N; x++) {
+                int f = problem.flux(x, s);
+                for(int pos = d; pos < N; pos++) {
+                    actual[x * N + pos] = anterior[x * N + pos] + f * problem.dist(pos, d - 1);
+                }
             }
         }
+        profCapes = m;
+    }
 
-        //Finalment obtenim la cota amb el Hungarian Algorithm
-        HungarianAlgorithm hungarianAlgorithm = new HungarianAlgorithm(C);
-        double T0 = problem.costSolucio(partialSol);
-        double T1 = hungarianAlgorithm.solve();
-        return T0 + T1;
+    //Vectors de distàncies de cada posició lliure a la resta de no ocupades, ordenats
+    //creixentment. Només depenen de m, de manera que es calculen un cop per nivell
+    private double[] distanciesOrdenades(int m) {
+        if(dOrdenades[m] != null) return dOrdenades[m];
+        int r = N - m;
+        int mida = r - 1;
+        double[] d = new double[r * mida];
+        for(int k = 0; k < r; k++) {
+            int idx = k * mida;
+            for(int j = 0; j < r; j++) {
+                if(j != k) d[idx++] = problem.dist(k + m, j + m);
+            }
+            Arrays.sort(d, k * mida, (k + 1) * mida);
+        }
+        dOrdenades[m] = d;
+        return d;
     }
 
-    //Vector de trànsit del ièssim símbol a la resta de símbols no col·locats
-    private Integer[] t(int i) {
-        Integer[] res  = new Integer[problem.getSimbols().length() - partialSol.length()];
-        for(int j = 0; j<N-m; j++) {
-            res[j] = problem.getFreq().get(availableSymbols.charAt(i), availableSymbols.charAt(j));
+    //Distàncies entre tots els parells de posicions no ocupades, ordenades creixentment.
+    //Només depenen de m, de manera que es calculen un cop per nivell
+    private double[] distanciesParells(int m) {
+        if(dParells[m] != null) return dParells[m];
+        int r = N - m;
+        double[] d = new double[r * (r - 1) / 2];
+        int idx = 0;
+        for(int k = m; k < N; k++) {
+            for(int j = k + 1; j < N; j++) d[idx++] = problem.dist(k, j);
         }
-        return res;
+        Arrays.sort(d);
+        dParells[m] = d;
+        return d;
     }
 
-    //Vector de distàncies de la kèssima posició a la resta de no ocupades
-    private Double[] d(int k) {
-        Double[] res = new Double[N-m];
-        for(int j = 0; j<N-m; j++) {
-            res[j] = problem.dist(k+m, j+m);
+    //Vector de trànsit del ièssim símbol lliure a la resta de símbols no col·locats
+    private void t(int i, int r) {
+        int idx = i * (r - 1);
+        for(int j = 0; j < r; j++) {
+            if(j != i) tOrdenats[idx++] = problem.flux(lliures[i], lliures[j]);
         }
-        return res;
     }
 
-    //Producte escalar de dos vectors a i b
-    private double dotProduct(Integer[] a, Double[] b) {
+    //Producte escalar del vector de trànsit (ordenat creixentment) i el de distàncies
+    //recorregut en ordre decreixent, que és el mínim entre les seves permutacions
+    private double dotProductReversed(int iniciT, double[] d, int iniciD, int mida) {
         double res = 0;
-        for(int i = 0; i < a.length; i++) {
-            res += a[i] * b[i];
+        for(int j = 0; j < mida; j++) {
+            res += tOrdenats[iniciT + j] * d[iniciD + mida - 1 - j];
         }
         return res;
     }
-}
\ No newline at end of file
+}
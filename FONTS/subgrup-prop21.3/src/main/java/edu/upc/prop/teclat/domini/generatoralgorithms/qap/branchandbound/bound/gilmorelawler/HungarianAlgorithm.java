@@ -15,7 +15,13 @@ class HungarianAlgorithm {
         this.costMatrix = costMatrix;
     }
     
-    int solve() {
+    double solve() {
+        // Guardem els costos originals per calcular el cost de l'assignació final
+        double[][] original = new double[costMatrix.length][];
+        for(int i=0; i<costMatrix.length; ++i) {
+            original[i] = costMatrix[i].clone();
+        }
+
         // Reduïm les files
         for(int i=0; i<costMatrix.length; ++i) {
             double min = Double.MAX_VALUE;
@@ -54,9 +60,9 @@ class HungarianAlgorithm {
             // Si és N, hem acabat
             if(lines == costMatrix.length) {
                 int[] assignation = greedyAssignation();
-                int cost = 0;
+                double cost = 0;
                 for(int i=0; i<costMatrix.length; i++) {
-                    cost += costMatrix[i][assignation[i]];
+                    cost += original[i][assignation[i]];
                 }
                 return cost;
             } else {
@@ -69,15 +75,15 @@ class HungarianAlgorithm {
                         }
                     }
                 }
-                // El sumem a les files no cobertes
+                // El restem a les files no cobertes
                 for(int i=0; i<costMatrix.length; ++i) {
                     if(!coveredRows[i]) {
                         for(int j=0; j<costMatrix[i].length; ++j) {
-                            costMatrix[i][j] += min;
+                            costMatrix[i][j] -= min;
                         }
                     }
                 }
-                // I a les columnes no cobertes
+                // I el sumem a les columnes cobertes
                 for(int i=0; i<costMatrix.length; ++i) {
                     if(coveredColumns[i]) {
                         for(int j=0; j<costMatrix[i].length; ++j) {
@@ -132,11 +138,11 @@ class HungarianAlgorithm {
                 }
             }
             
-            // Marquem les files amb un 0 en una columna marcada
+            // Marquem les files assignades a una columna marcada
             for(int i=0; i<costMatrix.length; ++i) {
                 if(markedColumns[i]) {
                     for(int j=0; j<costMatrix[i].length; ++j) {
-                        if(costMatrix[j][i] == 0 && !markedRows[j]) {
+                        if(assignation[j] == i && !markedRows[j]) {
                             markedRows[j] = true;
                             changesMade = true;
                         }
@@ -158,7 +164,7 @@ class HungarianAlgorithm {
         }
     }
     
-    // Retorna una assignació el més completa possible (per cada fila, quina columna o -1)
+    // Retorna una assignació de zeros el més completa possible (per cada fila, quina columna o -1)
     private int[] greedyAssignation() {
         Stack<int[]> stack = new Stack<int[]>();
         int[] bestAssignation = null;
@@ -167,7 +173,7 @@ class HungarianAlgorithm {
         while(!stack.isEmpty()) {
             int[] assignation = stack.pop();
             if(assignation.length == costMatrix.length) {
-                int benefit = -1;
+                int benefit = 0;
                 for(int i=0; i<costMatrix.length; ++i) {
                     if(assignation[i] != -1) benefit += 1;
                 }
@@ -177,9 +183,10 @@ class HungarianAlgorithm {
                 }
             } else {
                 for(int i=-1; i<costMatrix.length; ++i) {
+                    if(i != -1 && costMatrix[assignation.length][i] != 0) continue;
                     boolean alreadyAssigned = false;
                     for(int j=0; j<assignation.length; ++j) {
-                        if(assignation[j] == i) {
+                        if(i != -1 && assignation[j] == i) {
                             alreadyAssigned = true;
                             break;
                         }
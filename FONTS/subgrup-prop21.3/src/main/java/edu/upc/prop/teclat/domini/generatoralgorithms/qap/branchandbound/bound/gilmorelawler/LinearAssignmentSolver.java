@@ -0,0 +1,14 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler;
+
+/**
+ * Representa un algoritme que resol el problema d'assignació lineal (LAP).
+ */
+public interface LinearAssignmentSolver {
+    /**Resol el LAP de la submatriu r x r superior esquerra de la matriu de costos donada
+     * @param cost Matriu de costos, amb almenys r files i r columnes
+     * @param r Mida del problema
+     *
+     * @return El cost mínim d'assignar cada fila a una columna diferent.
+     */
+    double solve(double[][] cost, int r);
+}
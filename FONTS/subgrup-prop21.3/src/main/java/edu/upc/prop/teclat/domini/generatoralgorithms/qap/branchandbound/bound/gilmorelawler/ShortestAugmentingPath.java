@@ -0,0 +1,88 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler;
+
+import java.util.Arrays;
+
+/**
+ * Resol el problema d'assignació lineal amb l'algoritme de camins augmentants mínims
+ * (Jonker-Volgenant / Hungarian amb potencials) en temps O(n^3) garantit i aritmètica
+ * double exacta. Els vectors de treball es reserven un sol cop i es reutilitzen entre crides.
+ */
+public class ShortestAugmentingPath implements LinearAssignmentSolver {
+    // Potencials de files (u) i columnes (v), indexats des d'1
+    private final double[] u;
+    private final double[] v;
+    // p[j]: fila assignada a la columna j (0 si no en té); la columna 0 és la fila que s'està afegint
+    private final int[] p;
+    // way[j]: columna anterior a j dins del camí augmentant
+    private final int[] way;
+    // minv[j]: cost reduït mínim per arribar a la columna j
+    private final double[] minv;
+    private final boolean[] used;
+
+    public ShortestAugmentingPath(int maxN) {
+        u = new double[maxN + 1];
+        v = new double[maxN + 1];
+        p = new int[maxN + 1];
+        way = new int[maxN + 1];
+        minv = new double[maxN + 1];
+        used = new boolean[maxN + 1];
+    }
+
+    public double solve(double[][] cost, int r) {
+        Arrays.fill(u, 0, r + 1, 0);
+        Arrays.fill(v, 0, r + 1, 0);
+        Arrays.fill(p, 0, r + 1, 0);
+
+        // Afegim les files d'una en una, buscant cada cop el camí augmentant de cost reduït mínim
+        for(int i = 1; i <= r; ++i) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, 0, r + 1, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, 0, r + 1, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                double[] fila = cost[i0 - 1];
+                for(int j = 1; j <= r; ++j) {
+                    if(!used[j]) {
+                        double cur = fila[j - 1] - u[i0] - v[j];
+                        if(cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if(minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                // Actualitzem els potencials perquè els costos reduïts continuïn sent no negatius
+                for(int j = 0; j <= r; ++j) {
+                    if(used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while(p[j0] != 0);
+
+            // Invertim el camí augmentant
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while(j0 != 0);
+        }
+
+        // El cost es calcula amb la matriu original per no acumular errors dels potencials
+        double total = 0;
+        for(int j = 1; j <= r; ++j) {
+            total += cost[p[j] - 1][j - 1];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,30 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.simulatedannealing;
+
+/**
+ * Esquemes de refredament del Simulated Annealing. La temperatura s'expressa en funció del
+ * progrés dins del cicle actual (de 0 a 1), de manera que el mateix esquema serveix tant per
+ * a pressupostos d'iteracions com de temps, i sempre va de la temperatura inicial a la final.
+ */
+public enum CoolingSchedule {
+    /** Refredament exponencial: T = T0 * (Tf/T0)^p*/
+    GEOMETRIC {
+        double temperatura(double t0, double tf, double p) {
+            return t0 * Math.pow(tf / t0, p);
+        }
+    },
+    /** Refredament lineal: T = T0 + (Tf - T0) * p*/
+    LINEAR {
+        double temperatura(double t0, double tf, double p) {
+            return t0 + (tf - t0) * p;
+        }
+    },
+    /** Esquema de Lundy i Mees: T = T0 / (1 + beta * p), amb beta tal que s'acaba a Tf*/
+    LUNDY_MEES {
+        double temperatura(double t0, double tf, double p) {
+            return t0 / (1 + (t0 / tf - 1) * p);
+        }
+    };
+
+    // Temperatura amb progrés p dins del cicle, entre la temperatura inicial t0 i la final tf
+    abstract double temperatura(double t0, double tf, double p);
+}
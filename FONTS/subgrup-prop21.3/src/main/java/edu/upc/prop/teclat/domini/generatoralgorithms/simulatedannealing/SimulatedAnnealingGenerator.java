@@ -0,0 +1,241 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.simulatedannealing;
+
+import java.util.Random;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Generador de layouts amb Simulated Annealing sobre el veïnatge d'intercanvis de dues tecles.
+ * Cada moviment s'avalua amb {@link QAProblem#deltaIntercanvi} en O(n), sense recalcular el cost sencer.
+ * La temperatura inicial s'estima a partir de deltes aleatoris i es refreda segons un
+ * {@link CoolingSchedule} al llarg del pressupost (d'iteracions o de temps). Si la millor
+ * solució no millora durant una part del pressupost, es torna a escalfar des de la millor.
+ * Si parteix d'un layout donat, el primer refredament comença a la temperatura dels reescalfaments,
+ * per no perdre'l en les primeres iteracions. Si cap intercanvi de la solució de partida no empitjora
+ * el cost, no se'n pot estimar la temperatura, i primer es baixa fins a un mínim local.
+ */
+public class SimulatedAnnealingGenerator implements GeneratorAlgorithm {
+    /** Iteracions per defecte per cada parell de símbols (n^2)*/
+    public static final int ITERACIONS_PER_PARELL = 100;
+    /** Mínim d'iteracions per defecte, perquè els alfabets petits també es refredin a poc a poc*/
+    public static final long MIN_ITERACIONS = 100_000;
+    /** Nombre màxim de reescalfaments per defecte*/
+    public static final int REESCALFAMENTS = 3;
+
+    // Probabilitat d'acceptar un moviment que empitjora el cost mitjà a la temperatura inicial
+    private static final double ACCEPTACIO_INICIAL = 0.5;
+    // Relació entre la temperatura final i la inicial
+    private static final double RATIO_FINAL = 1e-3;
+    // Relació entre la temperatura d'un reescalfament i la inicial
+    private static final double RATIO_REESCALFAMENT = 0.3;
+    // Fracció del pressupost sense millorar la millor solució a partir de la qual es reescalfa
+    private static final double ESTANCAMENT = 0.1;
+    // Moviments aleatoris amb què s'estima la temperatura inicial
+    private static final int MOSTRES_TEMPERATURA = 1000;
+    // Cada quantes iteracions s'actualitza la temperatura i es consulta el control
+    private static final int PAS_CONTROL = 256;
+    // Millora mínima per considerar que s'ha trobat una nova millor solució
+    private static final double EPSILON = 1e-9;
+
+    private final CoolingSchedule schedule;
+    private final long maxIteracions;
+    private final long limitMillis;
+    private final int maxReescalfaments;
+    private final Long llavor;
+
+    // Constructora per defecte: refredament geomètric, pressupost d'iteracions segons la mida
+    public SimulatedAnnealingGenerator() {
+        this(CoolingSchedule.GEOMETRIC);
+    }
+
+    public SimulatedAnnealingGenerator(CoolingSchedule schedule) {
+        this(schedule, 0, SearchControl.SENSE_LIMIT);
+    }
+
+    // Permet fixar el pressupost. maxIteracions = 0 vol dir el valor per defecte segons la mida
+    // de l'alfabet, i limitMillis pot ser SearchControl.SENSE_LIMIT. Si s'indiquen els dos
+    // límits, s'acaba quan s'esgota el primer
+    public SimulatedAnnealingGenerator(CoolingSchedule schedule, long maxIteracions, long limitMillis) {
+        this(schedule, maxIteracions, limitMillis, REESCALFAMENTS, null);
+    }
+
+    // Constructora completa. Amb una llavor fixada el resultat és reproduïble (si el límit no és de temps)
+    public SimulatedAnnealingGenerator(CoolingSchedule schedule, long maxIteracions, long limitMillis,
+                                       int maxReescalfaments, Long llavor) {
+        if(maxIteracions < 0 || limitMillis < 0 || maxReescalfaments < 0) {
+            throw new IllegalArgumentException("Els paràmetres del Simulated Annealing no poden ser negatius");
+        }
+        this.schedule = schedule;
+        this.maxIteracions = maxIteracions;
+        this.limitMillis = limitMillis;
+        this.maxReescalfaments = maxReescalfaments;
+        this.llavor = llavor;
+    }
+
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq) {
+        return solve(simbols, cols, pairsFreq, new SearchControl());
+    }
+
+    // Només és reproduïble amb una llavor fixada i sense límit de temps propi, ja que amb un límit
+    // de temps el refredament segueix el temps transcorregut
+    @Override
+    public boolean esDeterminista() {
+        return llavor != null && limitMillis == SearchControl.SENSE_LIMIT;
+    }
+
+    @Override
+    public String getConfiguracio() {
+        return getClass().getSimpleName() + "(" + schedule + "," + maxIteracions + "," + limitMillis + ","
+                + maxReescalfaments + "," + llavor + ")";
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
+        return solve(simbols, cols, pairsFreq, null, control);
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, char[] layoutInicial, SearchControl control) {
+        Random random = llavor == null ? new Random() : new Random(llavor);
+        QAProblem problem = new QAProblem(cols, simbols, pairsFreq);
+        int n = problem.getNumSimbols();
+
+        // Solució inicial: la donada o una d'aleatòria amb l'algoritme de Fisher-Yates
+        int[] solucio = new int[n];
+        if(layoutInicial != null) {
+            if(!problem.esLayout(layoutInicial)) throw new IllegalArgumentException("El layout inicial no és una permutació dels símbols");
+            solucio = problem.toIndexos(layoutInicial);
+        } else {
+            for(int p = 0; p < n; p++) solucio[p] = p;
+            for(int p = n - 1; p > 0; p--) intercanvia(solucio, p, random.nextInt(p + 1));
+        }
+
+        double cost = problem.costSolucio(solucio, n);
+        double millorCost = cost;
+        int[] millorSolucio = solucio.clone();
+        control.reportSolution(problem.toLayout(millorSolucio), millorCost);
+
+        double t0 = temperaturaInicial(problem, solucio, random);
+        if(n >= 2 && t0 == 0) {
+            // Cap intercanvi provat no empitjora el cost, però pot ser perquè tots el milloren o el
+            // deixen igual. Baixem fins a un mínim local i hi tornem a estimar la temperatura
+            cost = descens(problem, solucio, cost, control);
+            if(cost < millorCost - EPSILON) {
+                millorCost = cost;
+                System.arraycopy(solucio, 0, millorSolucio, 0, n);
+                control.reportSolution(problem.toLayout(millorSolucio), millorCost);
+            }
+            t0 = temperaturaInicial(problem, solucio, random);
+        }
+        // Si tampoc cap intercanvi del mínim local empitjora el cost, tots el deixen igual i
+        // refredar no hi pot fer res
+        if(n < 2 || t0 == 0) return problem.toLayout(millorSolucio);
+        double tf = t0 * RATIO_FINAL;
+
+        long iteracions = maxIteracions > 0 ? maxIteracions
+                : (limitMillis == SearchControl.SENSE_LIMIT ? Math.max(MIN_ITERACIONS, (long) ITERACIONS_PER_PARELL * n * n) : Long.MAX_VALUE);
+        long inici = System.nanoTime();
+        double durada = limitMillis == SearchControl.SENSE_LIMIT ? Double.POSITIVE_INFINITY : limitMillis * 1e6;
+
+        // Cicle de refredament actual: comença amb progrés iniciCicle i temperatura tIniciCicle
+        double iniciCicle = 0;
+        double tIniciCicle = layoutInicial == null ? t0 : t0 * RATIO_REESCALFAMENT;
+        double progresMillora = 0;
+        int reescalfaments = 0;
+        double temperatura = tIniciCicle;
+
+        for(long it = 0; it < iteracions; it++) {
+            if(it % PAS_CONTROL == 0) {
+                if(it > 0 && !control.countNodes(PAS_CONTROL)) break;
+                double progres = Math.max((double) it / iteracions, (System.nanoTime() - inici) / durada);
+                if(progres >= 1) break;
+
+                // Si fa massa que no millorem, tornem a escalfar des de la millor solució
+                if(reescalfaments < maxReescalfaments && progres - progresMillora > ESTANCAMENT) {
+                    System.arraycopy(millorSolucio, 0, solucio, 0, n);
+                    cost = millorCost;
+                    iniciCicle = progres;
+                    tIniciCicle = t0 * RATIO_REESCALFAMENT;
+                    progresMillora = progres;
+                    reescalfaments++;
+                }
+                temperatura = schedule.temperatura(tIniciCicle, tf, (progres - iniciCicle) / (1 - iniciCicle));
+            }
+
+            int i = random.nextInt(n);
+            int j = random.nextInt(n - 1);
+            if(j >= i) j++;
+            double delta = problem.deltaIntercanvi(solucio, i, j);
+            if(delta <= 0 || random.nextDouble() < Math.exp(-delta / temperatura)) {
+                intercanvia(solucio, i, j);
+                cost += delta;
+                if(cost < millorCost - EPSILON) {
+                    millorCost = cost;
+                    System.arraycopy(solucio, 0, millorSolucio, 0, n);
+                    progresMillora = Math.max((double) it / iteracions, (System.nanoTime() - inici) / durada);
+                    control.reportSolution(problem.toLayout(millorSolucio), millorCost);
+                }
+            }
+        }
+        return problem.toLayout(millorSolucio);
+    }
+
+    private static void intercanvia(int[] solucio, int i, int j) {
+        int tmp = solucio[i];
+        solucio[i] = solucio[j];
+        solucio[j] = tmp;
+    }
+
+    // Aplica el primer intercanvi que millora el cost fins que no n'hi ha cap, i retorna el cost final
+    private static double descens(QAProblem problem, int[] solucio, double cost, SearchControl control) {
+        int n = solucio.length;
+        boolean millora = true;
+        while(millora && !control.shouldStop()) {
+            millora = false;
+            for(int i = 0; i < n - 1; i++) {
+                for(int j = i + 1; j < n; j++) {
+                    double delta = problem.deltaIntercanvi(solucio, i, j);
+                    if(delta < -EPSILON) {
+                        intercanvia(solucio, i, j);
+                        cost += delta;
+                        millora = true;
+                    }
+                }
+            }
+        }
+        return cost;
+    }
+
+    // Temperatura amb què un moviment que empitjora el cost mitjà s'accepta amb probabilitat
+    // ACCEPTACIO_INICIAL, estimada amb intercanvis aleatoris sense aplicar-los. Si hi ha menys
+    // intercanvis possibles que mostres, es proven tots
+    private static double temperaturaInicial(QAProblem problem, int[] solucio, Random random) {
+        int n = solucio.length;
+        if(n < 2) return 0;
+        double suma = 0;
+        int positius = 0;
+        boolean tots = (long) n * (n - 1) / 2 <= MOSTRES_TEMPERATURA;
+        int mostres = tots ? n * (n - 1) / 2 : MOSTRES_TEMPERATURA;
+        int i = 0;
+        int j = 0;
+        for(int k = 0; k < mostres; k++) {
+            if(tots) {
+                if(++j >= n) j = ++i + 1;
+            } else {
+                i = random.nextInt(n);
+                j = random.nextInt(n - 1);
+                if(j >= i) j++;
+            }
+            double delta = problem.deltaIntercanvi(solucio, i, j);
+            if(delta > 0) {
+                suma += delta;
+                positius++;
+            }
+        }
+        if(positius == 0) return 0;
+        return (suma / positius) / Math.log(1 / ACCEPTACIO_INICIAL);
+    }
+}
@@ -0,0 +1,264 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.tabusearch;
+
+import java.util.Random;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.GeneratorAlgorithm;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.hillclimbing.problems.QAP_HC;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Generador de layouts amb la Robust Tabu Search de Taillard sobre el veïnatge d'intercanvis.
+ * Es guarda el delta de cost de tots els intercanvis possibles en una matriu n x n: després de
+ * cada moviment (r, s), els intercanvis que no toquen r ni s s'actualitzen en O(1) i només es
+ * recalculen els 2n que sí que ho fan, de manera que cada iteració costa O(n^2).
+ * Un moviment és tabú si torna a posar els dos símbols en posicions que han deixat fa menys
+ * iteracions que la durada tabú, que es tria aleatòriament al voltant de n. Un moviment tabú
+ * s'accepta igualment si millora la millor solució (aspiració), i es força un moviment si col·loca
+ * dos símbols en posicions on fa molt que no han estat (aspiració a llarg termini).
+ */
+public class TabuSearchGenerator implements GeneratorAlgorithm {
+    /** Iteracions per defecte per cada símbol de l'alfabet*/
+    public static final int ITERACIONS_PER_SIMBOL = 100;
+    /** Mínim d'iteracions per defecte*/
+    public static final long MIN_ITERACIONS = 2_000;
+
+    // La durada tabú es tria uniformement entre DURADA_MIN*n i DURADA_MAX*n
+    private static final double DURADA_MIN = 0.9;
+    private static final double DURADA_MAX = 1.1;
+    // Iteracions (en múltiples de n^2) sense visitar una assignació a partir de les quals es força
+    private static final int ASPIRACIO_LLARGA = 5;
+    // Cada quantes iteracions (en múltiples de n) es recalcula tota la matriu de deltes,
+    // per no acumular errors d'arrodoniment
+    private static final int RECALCUL = 10;
+    // Millora mínima per considerar que s'ha trobat una nova millor solució
+    private static final double EPSILON = 1e-9;
+
+    private final long maxIteracions;
+    private final long limitMillis;
+    private final Long llavor;
+
+    // Constructora per defecte, amb un pressupost d'iteracions segons la mida de l'alfabet
+    public TabuSearchGenerator() {
+        this(0, SearchControl.SENSE_LIMIT);
+    }
+
+    // Permet fixar el pressupost. maxIteracions = 0 vol dir el valor per defecte segons la mida
+    // de l'alfabet, i limitMillis pot ser SearchControl.SENSE_LIMIT
+    public TabuSearchGenerator(long maxIteracions, long limitMillis) {
+        this(maxIteracions, limitMillis, null);
+    }
+
+    // Constructora completa. Amb una llavor fixada el resultat és reproduïble (si el límit no és de temps)
+    public TabuSearchGenerator(long maxIteracions, long limitMillis, Long llavor) {
+        if(maxIteracions < 0 || limitMillis < 0) {
+            throw new IllegalArgumentException("Els límits de la Tabu Search no poden ser negatius");
+        }
+        this.maxIteracions = maxIteracions;
+        this.limitMillis = limitMillis;
+        this.llavor = llavor;
+    }
+
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq) {
+        return solve(simbols, cols, pairsFreq, new SearchControl());
+    }
+
+    // Només és reproduïble amb una llavor fixada i sense límit de temps propi, ja que el temps
+    // que hi arriba depèn de la velocitat de l'execució
+    @Override
+    public boolean esDeterminista() {
+        return llavor != null && limitMillis == SearchControl.SENSE_LIMIT;
+    }
+
+    @Override
+    public String getConfiguracio() {
+        return getClass().getSimpleName() + "(" + maxIteracions + "," + limitMillis + "," + llavor + ")";
+    }
+
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, SearchControl control) {
+        return solve(simbols, cols, pairsFreq, null, control);
+    }
+
+    // La cerca comença pel layout donat, si n'hi ha, i si no per un d'aleatori
+    @Override
+    public char[] solve(String simbols, int cols, PairsFrequency pairsFreq, char[] layoutInicial, SearchControl control) {
+        Random random = llavor == null ? new Random() : new Random(llavor);
+        QAP_HC estat;
+        if(layoutInicial == null) {
+            estat = new QAP_HC(simbols.toCharArray(), cols, pairsFreq);
+            estat.FYshuffle(random.nextLong());
+        } else {
+            if(!new QAProblem(cols, simbols, pairsFreq).esLayout(layoutInicial)) {
+                throw new IllegalArgumentException("El layout inicial no és una permutació dels símbols");
+            }
+            estat = new QAP_HC(layoutInicial.clone(), cols, pairsFreq);
+        }
+        return new Cerca(estat, random, control).executa();
+    }
+
+    // Estat d'una execució. Cada símbol s'identifica per la posició que ocupa a l'estat inicial
+    private class Cerca {
+        private final QAP_HC estat;
+        private final Random random;
+        private final SearchControl control;
+        private final int n;
+
+        // perm[p]: símbol a la posició p
+        private final int[] perm;
+        // f[a*n + b]: freqüència entre els símbols a i b
+        private final int[] f;
+        // d[p*n + q]: distància entre les posicions p i q
+        private final double[] d;
+        // delta[i*n + j] (i < j): variació del cost en intercanviar les posicions i i j
+        private final double[] delta;
+        // tabu[p*n + a]: última iteració en què el símbol a no pot tornar a la posició p
+        private final long[] tabu;
+        // sortida[p*n + a]: última iteració en què el símbol a ha deixat la posició p
+        private final long[] sortida;
+
+        private double cost;
+
+        Cerca(QAP_HC estat, Random random, SearchControl control) {
+            this.estat = estat;
+            this.random = random;
+            this.control = control;
+            this.n = estat.getNumKeys();
+            this.perm = new int[n];
+            this.f = new int[n * n];
+            this.d = new double[n * n];
+            for(int p = 0; p < n; p++) {
+                perm[p] = p;
+                for(int q = 0; q < n; q++) {
+                    f[p * n + q] = estat.getFlow(p, q);
+                    d[p * n + q] = estat.getDistance(p, q);
+                }
+            }
+            this.delta = new double[n * n];
+            this.tabu = new long[n * n];
+            this.sortida = new long[n * n];
+        }
+
+        char[] executa() {
+            cost = estat.getCost();
+            double millorCost = cost;
+            char[] millorLayout = estat.getLayout().clone();
+            control.reportSolution(millorLayout, millorCost);
+            if(n < 2) return millorLayout;
+
+            long iteracions = maxIteracions > 0 ? maxIteracions
+                    : (limitMillis == SearchControl.SENSE_LIMIT ? Math.max(MIN_ITERACIONS, (long) ITERACIONS_PER_SIMBOL * n) : Long.MAX_VALUE);
+            long fi = limitMillis == SearchControl.SENSE_LIMIT ? Long.MAX_VALUE : System.nanoTime() + limitMillis * 1_000_000;
+            long aspiracio = (long) ASPIRACIO_LLARGA * n * n;
+            int duradaMax = Math.max(2, (int) Math.ceil(DURADA_MAX * n));
+            int duradaMin = Math.min(duradaMax, Math.max(1, (int) (DURADA_MIN * n)));
+            int durada = duradaMin;
+
+            recalculaDeltes();
+            for(long it = 1; it <= iteracions; it++) {
+                if(!control.countNode() || (fi != Long.MAX_VALUE && System.nanoTime() - fi >= 0)) break;
+                if(it % (2L * duradaMax) == 1) durada = duradaMin + random.nextInt(duradaMax - duradaMin + 1);
+                if(it % ((long) RECALCUL * n) == 0) {
+                    recalculaDeltes();
+                    cost = estat.getCost();
+                }
+
+                // Triem el millor moviment permès, excepte si n'hi ha algun de forçat. Abans de
+                // la iteració aspiracio cap assignació pot haver estat tant de temps sense visitar
+                boolean potForcar = it > aspiracio;
+                int r = -1, s = -1;
+                double millorDelta = Double.POSITIVE_INFINITY;
+                boolean forcat = false;
+                for(int i = 0; i < n - 1 && !forcat; i++) {
+                    for(int j = i + 1; j < n; j++) {
+                        int a = perm[i], b = perm[j];
+                        double dij = delta[i * n + j];
+                        if(potForcar && it - sortida[i * n + b] > aspiracio && it - sortida[j * n + a] > aspiracio) {
+                            r = i;
+                            s = j;
+                            forcat = true;
+                            break;
+                        }
+                        boolean permes = tabu[i * n + b] < it || tabu[j * n + a] < it;
+                        boolean aspira = cost + dij < millorCost - EPSILON;
+                        if((permes || aspira) && dij < millorDelta) {
+                            millorDelta = dij;
+                            r = i;
+                            s = j;
+                        }
+                    }
+                }
+                // Si tots els moviments són tabú, no ens movem en aquesta iteració
+                if(r < 0) continue;
+
+                int a = perm[r], b = perm[s];
+                cost += delta[r * n + s];
+                actualitzaDeltes(r, s);
+                tabu[r * n + a] = it + durada;
+                tabu[s * n + b] = it + durada;
+                sortida[r * n + a] = it;
+                sortida[s * n + b] = it;
+
+                if(cost < millorCost - EPSILON) {
+                    millorCost = cost;
+                    millorLayout = estat.getLayout().clone();
+                    control.reportSolution(millorLayout, millorCost);
+                }
+            }
+            return millorLayout;
+        }
+
+        // Calcula de zero el delta de tots els intercanvis, en O(n^3)
+        private void recalculaDeltes() {
+            for(int i = 0; i < n - 1; i++) {
+                for(int j = i + 1; j < n; j++) {
+                    delta[i * n + j] = deltaComplet(i, j);
+                }
+            }
+        }
+
+        // Aplica l'intercanvi de r i s i actualitza la matriu de deltes. Per a i, j diferents de r i s,
+        // només canvien els termes k = r i k = s del delta, i la diferència (amb la permutació d'abans
+        // del moviment) és (f(pj,ps) - f(pi,ps) - f(pj,pr) + f(pi,pr)) * (d(i,r) - d(j,r) - d(i,s) + d(j,s))
+        private void actualitzaDeltes(int r, int s) {
+            int pr = perm[r], ps = perm[s];
+            for(int i = 0; i < n - 1; i++) {
+                if(i == r || i == s) continue;
+                int pi = perm[i];
+                double dir = d[i * n + r] - d[i * n + s];
+                int fir = f[pi * n + pr] - f[pi * n + ps];
+                for(int j = i + 1; j < n; j++) {
+                    if(j == r || j == s) continue;
+                    int pj = perm[j];
+                    int df = fir - f[pj * n + pr] + f[pj * n + ps];
+                    if(df != 0) delta[i * n + j] += df * (dir - d[j * n + r] + d[j * n + s]);
+                }
+            }
+
+            perm[r] = ps;
+            perm[s] = pr;
+            estat.swap(r, s);
+
+            // Els intercanvis que involucren r o s es recalculen sencers
+            for(int k = 0; k < n; k++) {
+                if(k != r) delta[Math.min(k, r) * n + Math.max(k, r)] = deltaComplet(Math.min(k, r), Math.max(k, r));
+                if(k != s && k != r) delta[Math.min(k, s) * n + Math.max(k, s)] = deltaComplet(Math.min(k, s), Math.max(k, s));
+            }
+        }
+
+        // Delta de l'intercanvi de i i j en O(n):
+        // suma per k != i,j de (f(b,k) - f(a,k)) * (d(i,k) - d(j,k)), amb a = perm[i] i b = perm[j]
+        private double deltaComplet(int i, int j) {
+            int filaA = perm[i] * n;
+            int filaB = perm[j] * n;
+            double res = 0;
+            for(int k = 0; k < n; k++) {
+                int df = f[filaB + perm[k]] - f[filaA + perm[k]];
+                if(df == 0 || k == i || k == j) continue;
+                res += df * (d[i * n + k] - d[j * n + k]);
+            }
+            return res;
+        }
+    }
+}
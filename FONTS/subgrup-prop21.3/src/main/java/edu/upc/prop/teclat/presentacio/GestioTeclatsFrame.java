@@ -2,16 +2,23 @@ package edu.upc.prop.teclat.presentacio;
 
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.NumberFormat;
 
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.text.NumberFormatter;
 
+import edu.upc.prop.teclat.dades.exceptions.InvalidFileException;
 import edu.upc.prop.teclat.domini.exceptions.InvalidGeneratorAlgorithmException;
 import edu.upc.prop.teclat.domini.exceptions.NomBuitException;
 import edu.upc.prop.teclat.domini.exceptions.NomJaExisteixException;
 import edu.upc.prop.teclat.domini.exceptions.NomMassaLlargException;
 import edu.upc.prop.teclat.domini.exceptions.NomNoExisteixException;
+import edu.upc.prop.teclat.domini.exceptions.NumSimbolsInvalidException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.CaractersNoInclososException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.IndexosInvalidsException;
 import edu.upc.prop.teclat.domini.exceptions.teclat.MissingBestLayoutException;
@@ -34,6 +41,10 @@ public abstract class GestioTeclatsFrame extends javax.swing.JFrame {
     /**Apareix si no hi ha llistes de freqüències compatibles*/
     private static final String defaultComboBoxFreqList = "No hi ha llistes de freqüències compatibles";
 
+    /**Darrera opció del desplegable de textos, per obtenir els parells de freqüències d'un fitxer
+     * de text sense afegir-lo al Sistema*/
+    private static final String fitxerComboBoxText = "Des d'un fitxer de text...";
+
     /**Apareix la primera vegada que s'inserta un text al teclat*/
     private static final String textSelectLabel = "Selecciona el text:";
 
@@ -231,6 +242,7 @@ public abstract class GestioTeclatsFrame extends javax.swing.JFrame {
             for (String text : textos) {
                 textOrFreqListSelectorComboBox.addItem(text);
             }
+            textOrFreqListSelectorComboBox.addItem(fitxerComboBoxText);
             selectTextOrFreqListLabel.setText(textSelectLabel);
         } else {
             ArrayList<String> llistesFreq;
@@ -630,7 +642,9 @@ public abstract class GestioTeclatsFrame extends javax.swing.JFrame {
         if (textOrFreqListSelectorComboBox.getSelectedItem() == null || textOrFreqListSelectorComboBox.getSelectedItem().toString().equals(defaultComboBoxText) || textOrFreqListSelectorComboBox.getSelectedItem().toString().equals(defaultComboBoxFreqList)) {
             return;
         }
-        if (generateLayoutFromTextRadioButton.isSelected()) {
+        if (generateLayoutFromTextRadioButton.isSelected() && textOrFreqListSelectorComboBox.getSelectedItem().toString().equals(fitxerComboBoxText)) {
+            if (!setFreqPairsByFitxer()) return;
+        } else if (generateLayoutFromTextRadioButton.isSelected()) {
             try {
                 vistaPrincipal.setFreqPairsByTextTeclat(textOrFreqListSelectorComboBox.getSelectedItem().toString());
             } catch (NomNoExisteixException | CaractersNoInclososException | TeclatTemporalBuitException e) {
@@ -650,6 +664,37 @@ public abstract class GestioTeclatsFrame extends javax.swing.JFrame {
         updateTeclat();
     }//GEN-LAST:event_textOrFreqListSelectorComboBoxActionPerformed
 
+    /**
+     * Demana a l'usuari un fitxer de text i actualitza el teclat temporal amb els parells de
+     * freqüències del fitxer. El fitxer es llegeix per trossos i no s'afegeix al Sistema, de manera
+     * que pot ser un corpus massa gran per importar-lo com a text.
+     *
+     * @return True si s'han actualitzat els parells de freqüències. Altrament, false.
+     */
+    private boolean setFreqPairsByFitxer() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Escull un fitxer de text");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Fitxers de text (*.txt)", "txt"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return false;
+        Path path = Paths.get(fileChooser.getSelectedFile().toURI());
+        try {
+            vistaPrincipal.setFreqPairsByFitxerTeclat(path);
+            return true;
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Hi ha hagut un problema al llegir el fitxer.", "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (InvalidFileException e) {
+            JOptionPane.showMessageDialog(this, "El fitxer no és un fitxer de text (no té l'extensió .txt).", "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (NumSimbolsInvalidException e) {
+            JOptionPane.showMessageDialog(this, "El text no pot contenir més de 100 símbols diferents.", "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (CaractersNoInclososException e) {
+            JOptionPane.showMessageDialog(this, "El text conté símbols que no són a l'alfabet del teclat.", "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (TeclatTemporalBuitException e) {
+            // No pot passar
+            e.printStackTrace();
+        }
+        return false;
+    }
+
     /**
      * Fica el millor layout trobat fins ara.
      * Es crida quan l'usuari fa clic al botó per retornar al millor layout trobat fins ara.
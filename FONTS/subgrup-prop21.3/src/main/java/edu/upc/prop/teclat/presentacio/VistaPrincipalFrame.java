@@ -453,6 +453,24 @@ public class VistaPrincipalFrame extends javax.swing.JFrame {
         controladorCapaPresentacio.setFreqPairsByTextTeclat(nomText);
     }
 
+    /**
+     * Sobreescriu els parells de freqüències del conjunt de teclats amb uns de nous generats
+     * a partir del fitxer de text indicat pel path, sense afegir-lo al Sistema. El fitxer es
+     * llegeix per trossos, de manera que pot ser més gran que la memòria disponible.
+     *
+     * @param path Path del fitxer de text del que obtenir els nous parells de freqüències.
+     *
+     * @throws IOException S'ha produit un error en l'entrada/sortida del programa.
+     * @throws InvalidFileException El fitxer donat no té la extensió demanada.
+     * @throws NumSimbolsInvalidException El text del fitxer té més de 100 símbols diferents.
+     * @throws CaractersNoInclososException L'alfabet del teclat temporal del conjunt de teclats no 
+     *                                      conté tots els símbols del text del fitxer.
+     * @throws TeclatTemporalBuitException No hi ha dades al teclat temporal del conjunt de teclats.
+     */
+    void setFreqPairsByFitxerTeclat(Path path) throws IOException, InvalidFileException, NumSimbolsInvalidException, CaractersNoInclososException, TeclatTemporalBuitException {
+        controladorCapaPresentacio.setFreqPairsByFitxerTeclat(path);
+    }
+
     /**
      * Sobreescriu els parells de freqüència amb un de nou generat a partir de l’String d’entrada.
      *
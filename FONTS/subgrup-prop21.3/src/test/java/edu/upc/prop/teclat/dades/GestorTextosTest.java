@@ -0,0 +1,102 @@
+package edu.upc.prop.teclat.dades;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import edu.upc.prop.teclat.domini.Alfabet;
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.exceptions.NumSimbolsInvalidException;
+
+/**
+ * Proves de {@link GestorTextos#comptarParells(Path)}. Els fitxers es projecten per finestres de
+ * {@value MIDA_FINESTRA} bytes, de manera que els textos curts ja en travessen unes quantes.
+ */
+class GestorTextosTest {
+    /**Mida de les finestres amb què es projecten els fitxers a les proves.*/
+    private static final long MIDA_FINESTRA = 8;
+
+    /**Primer dels símbols dels textos amb molts símbols diferents.*/
+    private static final char PRIMER_SIMBOL = '\u4E00';
+
+    private static PairsFrequency comptar(String text) throws Exception {
+        Path path = Files.createTempFile("gestorTextos", ".txt");
+        try {
+            Files.writeString(path, text, StandardCharsets.UTF_8);
+            return new GestorTextos(null).comptarParells(path, MIDA_FINESTRA);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static TreeSet<Character> simbols(Character... simbols) {
+        return new TreeSet<>(Arrays.asList(simbols));
+    }
+
+    @Test
+    void majusculesIMinusculesEsComptenJuntes() throws Exception {
+        PairsFrequency parells = comptar("Ab aB AB ab Aa");
+        assertEquals(simbols('a', 'b'), parells.getSimbols());
+        assertEquals(4, parells.get('a', 'b'));
+        assertEquals(4, parells.get('b', 'a'));
+        assertEquals(1, parells.get('a', 'a'));
+        assertEquals(0, parells.get('A', 'B'));
+    }
+
+    @Test
+    void elsSeparadorsTallenElsMots() throws Exception {
+        // Només els símbols no permesos de l'alfabet separen; la resta, com ! o 2, formen part del mot
+        PairsFrequency parells = comptar("ab,cd.ef\tgh\r\nij\fkl m!2");
+        assertEquals(simbols('!', '2', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm'), parells.getSimbols());
+        assertEquals(1, parells.get('a', 'b'));
+        assertEquals(0, parells.get('b', 'c'));
+        assertEquals(0, parells.get('d', 'e'));
+        assertEquals(0, parells.get('f', 'g'));
+        assertEquals(0, parells.get('h', 'i'));
+        assertEquals(0, parells.get('j', 'k'));
+        assertEquals(1, parells.get('k', 'l'));
+        assertEquals(1, parells.get('m', '!'));
+        assertEquals(1, parells.get('!', '2'));
+    }
+
+    @Test
+    void caracterPartitEntreDuesFinestresEsComptaUnCop() throws Exception {
+        // "abcdefx" ocupa 7 bytes i el "€" 3: el primer byte del "€" és el darrer de la primera
+        // finestra i els altres dos són al principi de la segona
+        PairsFrequency parells = comptar("abcdefx€y Z€");
+        assertEquals(simbols('a', 'b', 'c', 'd', 'e', 'f', 'x', 'y', 'z', '€'), parells.getSimbols());
+        assertEquals(1, parells.get('f', 'x'));
+        assertEquals(1, parells.get('x', '€'));
+        assertEquals(1, parells.get('€', 'y'));
+        assertEquals(1, parells.get('z', '€'));
+        assertEquals(0, parells.get('y', 'z'));
+    }
+
+    @Test
+    void textAmbElMaximDeSimbolsEsCompta() throws Exception {
+        PairsFrequency parells = comptar(simbolsDiferents(Alfabet.MAX_NUM_SYMBOLS));
+        assertEquals(Alfabet.MAX_NUM_SYMBOLS, parells.getNumSimbols());
+        assertEquals(1, parells.get(PRIMER_SIMBOL, (char) (PRIMER_SIMBOL + 1)));
+        assertEquals(1, parells.get((char) (PRIMER_SIMBOL + 98), (char) (PRIMER_SIMBOL + 99)));
+        assertEquals(0, parells.get(PRIMER_SIMBOL, (char) (PRIMER_SIMBOL + 99)));
+    }
+
+    @Test
+    void textAmbMassaSimbolsLlencaExcepcio() {
+        assertThrows(NumSimbolsInvalidException.class, () -> comptar(simbolsDiferents(Alfabet.MAX_NUM_SYMBOLS + 1)));
+    }
+
+    /** Retorna un mot de {@code n} ideogrames consecutius, que no tenen majúscules ni minúscules. */
+    private static String simbolsDiferents(int n) {
+        StringBuilder mot = new StringBuilder();
+        for (int i = 0; i < n; ++i) mot.append((char) (PRIMER_SIMBOL + i));
+        return mot.toString();
+    }
+}
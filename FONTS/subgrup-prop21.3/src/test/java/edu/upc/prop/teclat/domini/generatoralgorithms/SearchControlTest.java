@@ -0,0 +1,40 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Proves de com un {@link SearchControl} indica que una fase de la cerca s'ha aturat abans
+ * d'acabar, que és el que decideix si un resultat es pot guardar a la memòria cau.
+ */
+class SearchControlTest {
+    @Test
+    void unaFaseAturadaPelSeuLimitMarcaElsPares() {
+        SearchControl arrel = new SearchControl();
+        SearchControl cursa = arrel.subControl(SearchControl.SENSE_LIMIT);
+        SearchControl fase = cursa.subControl(0);
+        assertTrue(fase.shouldStop());
+        assertFalse(arrel.isStopped());
+        assertTrue(cursa.isTruncated());
+        assertTrue(arrel.isTruncated());
+    }
+
+    @Test
+    void unaFaseQueAcabaNoMarcaElsPares() {
+        SearchControl arrel = new SearchControl();
+        SearchControl fase = arrel.subControl(SearchControl.SENSE_LIMIT);
+        assertFalse(fase.shouldStop());
+        assertFalse(arrel.isTruncated());
+    }
+
+    @Test
+    void unaCancelacioMarcaLaCerca() {
+        CancellationToken token = new CancellationToken();
+        SearchControl control = new SearchControl(SearchControl.SENSE_LIMIT, SearchControl.SENSE_LIMIT, token, null);
+        token.cancel();
+        assertTrue(control.shouldStop());
+        assertTrue(control.isTruncated());
+    }
+}
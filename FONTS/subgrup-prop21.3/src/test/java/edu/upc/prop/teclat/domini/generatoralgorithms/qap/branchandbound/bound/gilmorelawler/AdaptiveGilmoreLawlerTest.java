@@ -0,0 +1,78 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.bound.gilmorelawler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.GreedyGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.BranchAndBoundGenerator;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.branchandbound.NodeSelection;
+
+/**
+ * Proves de l'{@link AdaptiveGilmoreLawler}: el Branch And Bound ha d'arribar al mateix òptim que
+ * amb el {@link BoundGilmoreLawler}, i la cota barata no pot superar la completa en cap node.
+ */
+class AdaptiveGilmoreLawlerTest {
+    private static final String SIMBOLS = "abcdefghi";
+    private static final int COLS = 3;
+
+    private static PairsFrequency freqs(long llavor) {
+        Random random = new Random(llavor);
+        PairsFrequency pairsFreq = new PairsFrequency();
+        for(int i = 0; i < SIMBOLS.length(); i++) {
+            for(int j = i + 1; j < SIMBOLS.length(); j++) {
+                if(random.nextDouble() < 0.6) pairsFreq.put(SIMBOLS.charAt(i), SIMBOLS.charAt(j), 1 + random.nextInt(100));
+            }
+        }
+        return pairsFreq;
+    }
+
+    private static double optim(BranchAndBoundGenerator generador, PairsFrequency pairsFreq) {
+        char[] layout = generador.solve(SIMBOLS, COLS, pairsFreq);
+        return new QAProblem(COLS, SIMBOLS, pairsFreq).costSolucio(new String(layout));
+    }
+
+    @Test
+    void totesLesSeleccionsArribenAlMateixOptim() {
+        for(long llavor = 0; llavor < 4; llavor++) {
+            PairsFrequency pairsFreq = freqs(llavor);
+            double esperat = optim(new BranchAndBoundGenerator(false), pairsFreq);
+            for(NodeSelection seleccio : NodeSelection.values()) {
+                BranchAndBoundGenerator adaptatiu = new BranchAndBoundGenerator(false, AdaptiveGilmoreLawler::new,
+                        new GreedyGenerator(), SearchControl.SENSE_LIMIT, seleccio, BranchAndBoundGenerator.MAX_NODES_OBERTS);
+                assertEquals(esperat, optim(adaptatiu, pairsFreq), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void laCotaBarataNoSuperaLaCompleta() {
+        Random random = new Random(7);
+        for(long llavor = 0; llavor < 4; llavor++) {
+            QAProblem problem = new QAProblem(COLS, SIMBOLS, freqs(llavor));
+            AdaptiveGilmoreLawler bound = new AdaptiveGilmoreLawler(problem);
+            int n = problem.getNumSimbols();
+            for(int prova = 0; prova < 50; prova++) {
+                int[] sol = new int[n];
+                for(int p = 0; p < n; p++) sol[p] = p;
+                for(int p = n - 1; p > 0; p--) {
+                    int q = random.nextInt(p + 1);
+                    int tmp = sol[p];
+                    sol[p] = sol[q];
+                    sol[q] = tmp;
+                }
+                int m = random.nextInt(n + 1);
+                long[] usats = new long[1];
+                for(int p = 0; p < m; p++) usats[0] |= 1L << sol[p];
+                double completa = bound.getBound(sol, m, usats);
+                assertTrue(bound.cotaBarata(sol, m, usats) <= completa + 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.upc.prop.teclat.domini.generatoralgorithms.simulatedannealing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import edu.upc.prop.teclat.domini.PairsFrequency;
+import edu.upc.prop.teclat.domini.generatoralgorithms.SearchControl;
+import edu.upc.prop.teclat.domini.generatoralgorithms.qap.QAProblem;
+
+/**
+ * Proves del {@link SimulatedAnnealingGenerator} en els casos en què no es pot estimar la
+ * temperatura inicial perquè cap intercanvi no empitjora el cost.
+ */
+class SimulatedAnnealingGeneratorTest {
+    private static final String SIMBOLS = "abc";
+    private static final int COLS = 3;
+
+    // Només hi ha flux entre a i b. Des de "acb" tots els intercanvis milloren el cost o el deixen
+    // igual, i l'òptim és qualsevol layout amb a i b de costat
+    private static PairsFrequency fluxAB() {
+        PairsFrequency pairsFreq = new PairsFrequency();
+        pairsFreq.put('a', 'b', 10);
+        return pairsFreq;
+    }
+
+    private static double cost(PairsFrequency pairsFreq, char[] layout) {
+        return new QAProblem(COLS, SIMBOLS, pairsFreq).costSolucio(new String(layout));
+    }
+
+    @Test
+    void partintDUnLayoutSenseIntercanvisQueEmpitjorinArribaALOptim() {
+        PairsFrequency pairsFreq = fluxAB();
+        double optim = cost(pairsFreq, "abc".toCharArray());
+        for(long llavor = 0; llavor < 20; llavor++) {
+            SimulatedAnnealingGenerator sa = new SimulatedAnnealingGenerator(CoolingSchedule.GEOMETRIC, 0,
+                    SearchControl.SENSE_LIMIT, SimulatedAnnealingGenerator.REESCALFAMENTS, llavor);
+            char[] layout = sa.solve(SIMBOLS, COLS, pairsFreq, "acb".toCharArray(), new SearchControl());
+            assertEquals(optim, cost(pairsFreq, layout), 1e-9);
+        }
+    }
+
+    @Test
+    void senseLayoutInicialSempreArribaALOptim() {
+        PairsFrequency pairsFreq = fluxAB();
+        double optim = cost(pairsFreq, "abc".toCharArray());
+        for(long llavor = 0; llavor < 200; llavor++) {
+            SimulatedAnnealingGenerator sa = new SimulatedAnnealingGenerator(CoolingSchedule.GEOMETRIC, 0,
+                    SearchControl.SENSE_LIMIT, SimulatedAnnealingGenerator.REESCALFAMENTS, llavor);
+            assertEquals(optim, cost(pairsFreq, sa.solve(SIMBOLS, COLS, pairsFreq)), 1e-9);
+        }
+    }
+}